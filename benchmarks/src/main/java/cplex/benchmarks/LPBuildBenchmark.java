@@ -0,0 +1,78 @@
+package cplex.benchmarks;
+
+import ilog.cplex.IloCplex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Construction of the example_3 MTZ model on n nodes, without solve, term by
+ * term with IloLinearNumExpr ("expressions") and through LPMatrixBuilder
+ * ("matrix"). At n = 600 the model has about 360000 rows.
+ *
+ * As in {@link ModelBuildBenchmark}, each operation creates and ends the
+ * IloCplex, and the main adds the GC profiler.
+ *
+ * Usage: java -Djava.library.path=... -cp benchmarks.jar:cplex.jar:ILOG.CP.jar
+ *        cplex.benchmarks.LPBuildBenchmark [JMH options, e.g. -p n=100]
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LPBuildBenchmark {
+
+    @State(Scope.Thread)
+    public static class Model {
+        @Param({ "expressions", "matrix" })
+        public String form;
+
+        @Param({ "100", "300", "600" })
+        public int n;
+
+        Consumer<IloCplex> builder;
+
+        @Setup
+        @SuppressWarnings("unchecked")
+        public void setup() throws Exception {
+            builder = (Consumer<IloCplex>) Class.forName("ModelBuilds")
+                .getMethod("lpBuilder", String.class, int.class)
+                .invoke(null, form, n);
+        }
+    }
+
+    @Benchmark
+    public void build(Model m) throws Exception {
+        IloCplex model = new IloCplex();
+        try {
+            m.builder.accept(model);
+        } finally {
+            model.end();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        ChainedOptionsBuilder opt = new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class);
+        if (cmd.getIncludes().isEmpty())
+            opt.include(LPBuildBenchmark.class.getName());
+        new Runner(opt.build()).run();
+    }
+}
@@ -0,0 +1,89 @@
+package cplex.benchmarks;
+
+import ilog.cp.IloCP;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Concert model construction of the examples, without solve, at several
+ * scales (see ModelBuilds for the sizes). The names with a suffix, such as
+ * Allocation.dense, are other formulations of the same model and data.
+ *
+ * Each operation creates an IloCP, builds the model into it and ends it;
+ * {@link #engine} measures the IloCP alone, once, so that it can be
+ * subtracted.
+ *
+ * The main adds the GC profiler: gc.alloc.rate.norm is the Java heap
+ * allocated per build. Memory of the native engine is not included.
+ *
+ * Usage: java -Djava.library.path=... -cp benchmarks.jar:cplex.jar:ILOG.CP.jar
+ *        cplex.benchmarks.ModelBuildBenchmark [JMH options, e.g. -p model=Facility -p scale=1]
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBuildBenchmark {
+
+    @State(Scope.Thread)
+    public static class Model {
+        @Param({ "Facility", "PlantLocation", "Allocation", "Ppp", "Talent", "Truckfleet", "Sports", "SchedJobShop",
+                 "SchedRCPSP", "Allocation.dense", "Ppp.compact", "SumBuilder", "SumBuilder.chained" })
+        public String model;
+
+        @Param({ "1", "2", "4" })
+        public int scale;
+
+        Consumer<IloCP> builder;
+
+        // The examples are in the default package: ModelBuilds is only reachable by reflection
+        @Setup
+        @SuppressWarnings("unchecked")
+        public void setup() throws Exception {
+            builder = (Consumer<IloCP>) Class.forName("ModelBuilds")
+                .getMethod("builder", String.class, int.class)
+                .invoke(null, model, scale);
+        }
+    }
+
+    @Benchmark
+    public void build(Model m) throws Exception {
+        IloCP cp = new IloCP();
+        try {
+            m.builder.accept(cp);
+        } finally {
+            cp.end();
+        }
+    }
+
+    @Benchmark
+    public void engine() throws Exception {
+        new IloCP().end();
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        ChainedOptionsBuilder opt = new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class);
+        if (cmd.getIncludes().isEmpty())
+            opt.include(ModelBuildBenchmark.class.getName());
+        new Runner(opt.build()).run();
+    }
+}
@@ -57,91 +57,55 @@ public class SchedConflict {
   public static IloCP cp;
   public static IloConstraint[] capacityCts;
   public static IloConstraint[] precedenceCts;
+  public static IloIntervalVar[] tasks;
                    
   public SchedConflict(String fileName) throws IOException, IloException {
     cp = new IloCP();
     this.buildModel(fileName);
   }
   
-  private static class DataReader {
-
-    private StreamTokenizer st;
-
-    public DataReader(String filename) throws IOException {
-      FileInputStream fstream = new FileInputStream(filename);
-      Reader r = new BufferedReader(new InputStreamReader(fstream));
-      st = new StreamTokenizer(r);
-    }
-
-    public int next() throws IOException {
-      st.nextToken();
-      return (int) st.nval;
-    }
-  }
-
-  static IloIntExpr[] arrayFromExprList(List<IloIntExpr> list) {
-    return (IloIntExpr[]) list.toArray(new IloIntExpr[list.size()]);
-  }
-  
-  static IloConstraint[] arrayFromConstraintList(List<IloConstraint> list) {
-    return (IloConstraint[]) list.toArray(new IloConstraint[list.size()]);
-  }
-    
   //----- RCPSP Model creation ------------------------------------------------
 
   private void buildModel(String fileName) throws IOException {
     int nbTasks, nbResources;
-    DataReader data = new DataReader(fileName);
+    RCPSPInstance inst = RCPSPInstance.readWithTimeWindows(DataReader.open(fileName));
     try {
-      nbTasks = data.next();
-      nbResources = data.next();
-      List<IloIntExpr>    ends             = new ArrayList<IloIntExpr>();
-      List<IloConstraint> capacityCtList   = new ArrayList<IloConstraint>();
-      List<IloConstraint> precedenceCtList = new ArrayList<IloConstraint>();
+      nbTasks = inst.getNbTasks();
+      nbResources = inst.getNbResources();
+      IloIntExpr[] ends = new IloIntExpr[nbTasks];
+      capacityCts   = new IloConstraint[nbResources];
+      precedenceCts = new IloConstraint[inst.getNbPrecedences()];
       IloCumulFunctionExpr[] resources = new IloCumulFunctionExpr[nbResources];
-      int[] capacities = new int[nbResources];
       for(int j = 0; j < nbResources; j++) {
-        capacities[j] = data.next();
         resources[j] = cp.cumulFunctionExpr();
       }
-      IloIntervalVar[] tasks = new IloIntervalVar[nbTasks];
+      tasks = new IloIntervalVar[nbTasks];
       for (int i = 0; i < nbTasks; i++) {
-        tasks[i] = cp.intervalVar();
-        tasks[i].setName("ACT" + i);
+        tasks[i] = cp.intervalVar(inst.duration(i), "ACT" + i);
+        tasks[i].setStartMin(inst.startMin(i));
+        tasks[i].setEndMax(inst.endMax(i));
       }
       for (int i = 0; i < nbTasks; i++) {
         IloIntervalVar task = tasks[i];
-        int d, smin, emax, nbSucc;
-        d    = data.next();
-        smin = data.next();
-        emax = data.next();
-        task.setSizeMin(d);
-        task.setSizeMax(d);
-        task.setStartMin(smin);
-        task.setEndMax(emax);
-        ends.add(cp.endOf(task));
+        ends[i] = cp.endOf(task);
         for (int j = 0; j < nbResources; j++ ) {
-          int q = data.next();
+          int q = inst.demand(i, j);
           if (q > 0) {
             resources[j] = cp.sum(resources[j], cp.pulse(task, q));
           }
         }
-        nbSucc = data.next();
-        for (int s = 0; s < nbSucc; s++ ) {
-          int succ = data.next();
-          IloConstraint pct = cp.endBeforeStart(task, tasks[succ]);
+        for (int s = inst.firstSuccessor(i); s < inst.endSuccessor(i); s++ ) {
+          IloConstraint pct = cp.endBeforeStart(task, tasks[inst.successor(s)]);
           cp.add(pct);
-          precedenceCtList.add(pct);
+          precedenceCts[s] = pct;
         }
       }
       for (int j = 0; j < nbResources; j++) {
-        IloConstraint cct = cp.le(resources[j], capacities[j]);
+        IloConstraint cct = cp.le(resources[j], inst.capacity(j));
         cp.add(cct);
-        capacityCtList.add(cct);
+        capacityCts[j] = cct;
       }
-      precedenceCts = arrayFromConstraintList(precedenceCtList);
-      capacityCts   = arrayFromConstraintList(capacityCtList);
-      IloObjective objective = cp.minimize(cp.max(arrayFromExprList(ends)));
+      IloObjective objective = cp.minimize(cp.max(ends));
       cp.add(objective);
     } catch (IloException e) {
         System.err.println("Error: " + e);
@@ -256,6 +220,13 @@ public class SchedConflict {
       if (cp.solve()) {
         // A solution was found
         System.out.println("Solution found with makespan : " + cp.getObjValue());
+        SolutionWriter out = SolutionWriter.fromProperty();
+        if (out != null) {
+          out.write("makespan", cp.getObjValue());
+          out.write("start", SolutionWriter.starts(cp, tasks));
+          out.write("end", SolutionWriter.ends(cp, tasks));
+          out.close();
+        }
       } else {
         int status = cp.getInfo(IloCP.IntInfo.SearchStatus);
         if (status != IloCP.ParameterValues.SearchCompleted.getValue()) {
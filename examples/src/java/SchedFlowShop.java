@@ -32,22 +32,6 @@ import java.util.ArrayList;
 
 public class SchedFlowShop {
 
-    static class DataReader {
-
-        private StreamTokenizer st;
-
-        public DataReader(String filename) throws IOException {
-            FileInputStream fstream = new FileInputStream(filename);
-            Reader r = new BufferedReader(new InputStreamReader(fstream));
-            st = new StreamTokenizer(r);
-        }
-
-        public int next() throws IOException {
-            st.nextToken();
-            return (int) st.nval;
-        }
-    }
-
     static class IntervalVarList extends ArrayList<IloIntervalVar> {
         public IloIntervalVar[] toArray() {
             return (IloIntervalVar[]) this.toArray(new IloIntervalVar[this.size()]);
@@ -70,7 +54,7 @@ public class SchedFlowShop {
             failLimit = Integer.parseInt(args[1]);
 
         IloCP cp = new IloCP();
-        DataReader data = new DataReader(filename);
+        DataReader data = DataReader.open(filename);
         try {
             nbJobs = data.next();
             nbMachines = data.next();
@@ -71,25 +71,9 @@ public class SchedGoalProg {
     createModel(fileName);
   }
   
-  private static class DataReader {
-
-    private StreamTokenizer st;
-
-    public DataReader(String filename) throws IOException {
-      FileInputStream fstream = new FileInputStream(filename);
-      Reader r = new BufferedReader(new InputStreamReader(fstream));
-      st = new StreamTokenizer(r);
-    }
-
-    public int next() throws IOException {
-      st.nextToken();
-      return (int) st.nval;
-    }
-  }
-  
   private void createModel(String dataFile) throws IOException, IloException {
     
-    DataReader data = new DataReader(dataFile);
+    DataReader data = DataReader.open(dataFile);
     nbJobs = data.next();
     nbMachines = data.next();
       
@@ -139,14 +123,15 @@ public class SchedGoalProg {
     System.out.println(" ! ----------------------------------------------------------------------------");
     System.out.println(" ! STEP 1: Minimizing usage of expensive resources");
     System.out.println(" ! ----------------------------------------------------------------------------");
-    IloIntExpr costExpr = cp.intExpr();
+    SumBuilder costTerms = new SumBuilder(cp, nbJobs * nbMachines);
     for (int i = 0; i < nbJobs; i++) {
       for (int j = 0; j < nbMachines; j++) {
         if (costs[j][i] == 1000) {
-          costExpr = cp.sum(costExpr, cp.presenceOf(machines[j][i]));
+          costTerms.add(cp.presenceOf(machines[j][i]));
         }
       }
     }
+    IloIntExpr costExpr = costTerms.toExpr();
     IloObjective obj1 = cp.minimize(costExpr);
     cp.add(obj1);
     
@@ -174,13 +159,14 @@ public class SchedGoalProg {
     System.out.println(" ! ----------------------------------------------------------------------------");
     cp.remove(obj1);
     cp.add(cp.le(costExpr, cost1));
-    IloIntExpr costExpr2 = cp.intExpr();
+    SumBuilder costTerms2 = new SumBuilder(cp, nbJobs * nbMachines);
     for (int i = 0; i < nbJobs; i++) {
       for (int j = 0; j < nbMachines; j++) {
         if (costs[j][i] < 1000)
-          costExpr2 = cp.sum(costExpr2, cp.prod(costs[j][i], cp.presenceOf(machines[j][i])));
+          costTerms2.add(costs[j][i], cp.presenceOf(machines[j][i]));
       }
     }
+    IloIntExpr costExpr2 = costTerms2.toExpr();
     IloObjective obj2 = cp.minimize(costExpr2);
     cp.add(obj2);
     cp.setParameter(IloCP.IntParam.BranchLimit, branchesLeft);
@@ -197,14 +183,15 @@ public class SchedGoalProg {
     System.out.println(" ! ----------------------------------------------------------------------------");
     System.out.println(" ! Minimizing total cost");
     System.out.println(" ! ----------------------------------------------------------------------------");
-    IloIntExpr costExpr = cp.intExpr();
     int nbMachines = machines.length;
     int nbJobs = machines[0].length;
+    SumBuilder costTerms = new SumBuilder(cp, nbJobs * nbMachines);
     for (int i = 0; i < nbJobs; i++) {
       for (int j = 0; j < nbMachines; j++) {
-        costExpr = cp.sum(costExpr, cp.prod(costs[j][i], cp.presenceOf(machines[j][i])));
+        costTerms.add(costs[j][i], cp.presenceOf(machines[j][i]));
       }
     }
+    IloIntExpr costExpr = costTerms.toExpr();
     IloObjective obj = cp.minimize(costExpr);
     cp.add(obj);
     
@@ -36,74 +36,117 @@ import java.util.List;
 
 public class SchedJobShop {
 
-    static class DataReader {
+    static class IntervalVarList extends ArrayList<IloIntervalVar> {
+        public IloIntervalVar[] toArray() {
+            return (IloIntervalVar[]) this.toArray(new IloIntervalVar[this.size()]);
+        }
+    }
 
-        private StreamTokenizer st;
+    static IloIntExpr[] arrayFromList(List<IloIntExpr> list) {
+        return (IloIntExpr[]) list.toArray(new IloIntExpr[list.size()]);
+    }
 
-        public DataReader(String filename) throws IOException {
-            FileInputStream fstream = new FileInputStream(filename);
-            Reader r = new BufferedReader(new InputStreamReader(fstream));
-            st = new StreamTokenizer(r);
+    // Operation j of job i runs on machine[i * nbMachines + j] for duration[i * nbMachines + j]
+    static class Instance {
+        final String name;
+        final int nbJobs, nbMachines;
+        final int[] machine;
+        final int[] duration;
+
+        Instance(String name, int nbJobs, int nbMachines, int[] machine, int[] duration) {
+            this.name = name;
+            this.nbJobs = nbJobs;
+            this.nbMachines = nbMachines;
+            this.machine = machine;
+            this.duration = duration;
         }
 
-        public int next() throws IOException {
-            st.nextToken();
-            return (int) st.nval;
+        // Null when the data is not a job-shop instance: a header that is not two
+        // positive counts, a machine out of range, or too few or too many integers
+        // (other formats, such as machine/dmin/dmax triples, leave integers behind)
+        static Instance read(String name, DataReader data) throws IOException {
+            if (!data.hasNext())
+                return null;
+            int nbJobs = data.next();
+            if (!data.hasNext())
+                return null;
+            int nbMachines = data.next();
+            if (nbJobs <= 0 || nbMachines <= 0 || (long) nbJobs * nbMachines > Integer.MAX_VALUE - 8)
+                return null;
+            int[] machine = new int[nbJobs * nbMachines];
+            int[] duration = new int[nbJobs * nbMachines];
+            for (int k = 0; k < nbJobs * nbMachines; k++) {
+                if (!data.hasNext())
+                    return null;
+                machine[k] = data.next();
+                if (!data.hasNext())
+                    return null;
+                duration[k] = data.next();
+                if (machine[k] < 0 || machine[k] >= nbMachines)
+                    return null;
+            }
+            if (data.hasNext())
+                return null;
+            return new Instance(name, nbJobs, nbMachines, machine, duration);
         }
     }
 
-    static class IntervalVarList extends ArrayList<IloIntervalVar> {
-        public IloIntervalVar[] toArray() {
-            return (IloIntervalVar[]) this.toArray(new IloIntervalVar[this.size()]);
+    static IloObjective buildModel(IloCP cp, Instance inst) throws IloException {
+        int nbJobs = inst.nbJobs;
+        int nbMachines = inst.nbMachines;
+        List<IloIntExpr> ends = new ArrayList<IloIntExpr>();
+        IntervalVarList[] machines = new IntervalVarList[nbMachines];
+        for (int j = 0; j < nbMachines; j++)
+            machines[j] = new IntervalVarList();
+
+        for (int i = 0; i < nbJobs; i++) {
+            IloIntervalVar prec = cp.intervalVar();
+            for (int j = 0; j < nbMachines; j++) {
+                int m, d;
+                m = inst.machine[i * nbMachines + j];
+                d = inst.duration[i * nbMachines + j];
+                IloIntervalVar ti = cp.intervalVar(d);
+                machines[m].add(ti);
+                if (j > 0) {
+                    cp.add(cp.endBeforeStart(prec, ti));
+                }
+                prec = ti;
+            }
+            ends.add(cp.endOf(prec));
         }
-    }
 
-    static IloIntExpr[] arrayFromList(List<IloIntExpr> list) {
-        return (IloIntExpr[]) list.toArray(new IloIntExpr[list.size()]);
+        for (int j = 0; j < nbMachines; j++)
+            cp.add(cp.noOverlap(machines[j].toArray()));
+
+        IloObjective objective = cp.minimize(cp.max(arrayFromList(ends)));
+        cp.add(objective);
+        return objective;
     }
 
     public static void main(String[] args) throws IOException {
 
         String filename = "../../../examples/data/jobshop_default.data";
-        int nbJobs, nbMachines;
 
         if (args.length > 0)
             filename = args[0];
 
+        // A directory or a glob pattern runs the whole library, see SchedJobShopBatch
+        if (SchedJobShopBatch.isBatch(filename)) {
+            SchedJobShopBatch.main(args);
+            return;
+        }
+
+        Instance inst = Instance.read(filename, DataReader.open(filename));
+        if (inst == null)
+            throw new IOException(filename + ": not a job-shop instance");
         IloCP cp = new IloCP();
-        DataReader data = new DataReader(filename);
         try {
-            nbJobs = data.next();
-            nbMachines = data.next();
-            List<IloIntExpr> ends = new ArrayList<IloIntExpr>();
-            IntervalVarList[] machines = new IntervalVarList[nbMachines];
-            for (int j = 0; j < nbMachines; j++)
-                machines[j] = new IntervalVarList();
-
-            for (int i = 0; i < nbJobs; i++) {
-                IloIntervalVar prec = cp.intervalVar();
-                for (int j = 0; j < nbMachines; j++) {
-                    int m, d;
-                    m = data.next();
-                    d = data.next();
-                    IloIntervalVar ti = cp.intervalVar(d);
-                    machines[m].add(ti);
-                    if (j > 0) {
-                        cp.add(cp.endBeforeStart(prec, ti));
-                    }
-                    prec = ti;
-                }
-                ends.add(cp.endOf(prec));
-            }
-
-            for (int j = 0; j < nbMachines; j++)
-                cp.add(cp.noOverlap(machines[j].toArray()));
-
-            IloObjective objective = cp.minimize(cp.max(arrayFromList(ends)));
-            cp.add(objective);
+            SolverEvents.ModelBuild build = SolverEvents.beginBuild(filename);
+            buildModel(cp, inst);
+            SolverEvents.endBuild(build, (long) inst.nbJobs * inst.nbMachines);
 
             System.out.println("Instance \t: " + filename);
-            if (cp.solve()) {
+            if (SolverEvents.solve(cp, filename)) {
                 System.out.println("Makespan \t: " + cp.getObjValue());
             } else {
                 System.out.println("No solution found.");
@@ -0,0 +1,188 @@
+/* ------------------------------------------------------------
+
+Batch runner for job-shop libraries
+-----------------------------------
+
+Solves every instance of a directory, of a glob pattern (for example
+"data/ta*.data") or of an instance archive (see InstanceArchive.java)
+with the model of SchedJobShop.java. Files in another format, which the
+examples data directory (the default) mostly holds, are listed as skipped
+and not solved.
+
+Instances are parsed on a small pool of I/O threads while earlier
+instances are being solved; at most a bounded number of parsed
+instances wait in memory. Several IloCP solves run at the same time and
+the available cores are split between them through the Workers
+parameter so that the machine is not oversubscribed.
+
+Engine statistics of every solve are gathered per instance size by
+SolverStats and summarized at the end; -Dstats.log=file also appends them
+to a binary log for comparison across runs.
+
+Usage: SchedJobShop <dir|glob|archive.iar> [parallelSolves] [timeLimit] [ioThreads]
+   or: SchedJobShopBatch <dir|glob|archive.iar> [parallelSolves] [timeLimit] [ioThreads]
+
+------------------------------------------------------------ */
+
+import ilog.concert.*;
+import ilog.cp.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class SchedJobShopBatch {
+
+    static class Result {
+        String name;
+        boolean skipped;
+        boolean solved;
+        double makespan, bound, gap;
+        long wallMillis;
+        String error;
+    }
+
+    static boolean isBatch(String arg) {
+        return arg.indexOf('*') >= 0 || arg.indexOf('?') >= 0 || new File(arg).isDirectory()
+                || arg.endsWith(InstanceArchive.EXTENSION);
+    }
+
+    // Instance names as accepted by DataReader.open: files, or entries of an archive
+    static List<String> listInstances(String arg) throws IOException {
+        List<String> names = new ArrayList<String>();
+        if (arg.endsWith(InstanceArchive.EXTENSION)) {
+            for (String name : InstanceArchive.get(arg).names())
+                names.add(arg + "#" + name);
+        } else {
+            for (Path f : InstanceArchive.listFiles(arg))
+                names.add(f.toString());
+        }
+        return names;
+    }
+
+    static Result solve(SchedJobShop.Instance inst, int workers, double timeLimit, SolverStats stats) {
+        Result r = new Result();
+        r.name = inst.name;
+        long start = System.nanoTime();
+        IloCP cp = new IloCP();
+        try {
+            SchedJobShop.buildModel(cp, inst);
+            cp.setParameter(IloCP.IntParam.Workers, workers);
+            cp.setParameter(IloCP.IntParam.LogVerbosity, IloCP.ParameterValues.Quiet);
+            if (timeLimit > 0)
+                cp.setParameter(IloCP.DoubleParam.TimeLimit, timeLimit);
+            r.solved = cp.solve();
+            if (r.solved) {
+                r.makespan = cp.getObjValue();
+                r.bound = cp.getObjBound();
+                r.gap = cp.getObjGap();
+            }
+            stats.record("jobshop-" + inst.nbJobs + "x" + inst.nbMachines, cp);
+        } catch (IloException e) {
+            r.error = e.toString();
+        } finally {
+            cp.end();
+        }
+        r.wallMillis = (System.nanoTime() - start) / 1000000;
+        return r;
+    }
+
+    static void printResults(List<Result> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-32s %10s %10s %8s %10s%n", "Instance", "Makespan", "Bound", "Gap", "Wall(ms)"));
+        List<String> skipped = new ArrayList<String>();
+        for (Result r : results) {
+            if (r.skipped)
+                skipped.add(r.name);
+            else if (r.error != null)
+                sb.append(String.format("%-32s %s%n", r.name, r.error));
+            else if (!r.solved)
+                sb.append(String.format("%-32s %10s %10s %8s %10d%n", r.name, "-", "-", "-", r.wallMillis));
+            else
+                sb.append(String.format("%-32s %10.0f %10.0f %7.2f%% %10d%n",
+                        r.name, r.makespan, r.bound, 100 * r.gap, r.wallMillis));
+        }
+        if (!skipped.isEmpty())
+            sb.append(String.format("Skipped, not job-shop instances: %s%n", String.join(" ", skipped)));
+        System.out.print(sb);
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        String pattern = "../../../examples/data";
+        int parallelSolves = 2;
+        double timeLimit = 60;
+        int ioThreads = 2;
+
+        if (args.length > 0)
+            pattern = args[0];
+        if (args.length > 1)
+            parallelSolves = Integer.parseInt(args[1]);
+        if (args.length > 2)
+            timeLimit = Double.parseDouble(args[2]);
+        if (args.length > 3)
+            ioThreads = Integer.parseInt(args[3]);
+
+        List<String> files = listInstances(pattern);
+        final int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / parallelSolves);
+        final double limit = timeLimit;
+        final SolverStats stats = SolverStats.fromProperty();
+        // Parsed instances waiting for a solver, released when their solve starts
+        final Semaphore prefetch = new Semaphore(parallelSolves + ioThreads);
+
+        ExecutorService io = Executors.newFixedThreadPool(ioThreads);
+        ExecutorService solvers = Executors.newFixedThreadPool(parallelSolves);
+        List<Future<Result>> pending = new ArrayList<Future<Result>>();
+        long start = System.nanoTime();
+        try {
+            for (final String file : files) {
+                final String shortName = file.substring(Math.max(file.lastIndexOf('#'), file.lastIndexOf(File.separatorChar)) + 1);
+                final Future<SchedJobShop.Instance> loaded = io.submit(new Callable<SchedJobShop.Instance>() {
+                    public SchedJobShop.Instance call() throws Exception {
+                        prefetch.acquire();
+                        return SchedJobShop.Instance.read(shortName, InstanceCache.open(file));
+                    }
+                });
+                pending.add(solvers.submit(new Callable<Result>() {
+                    public Result call() throws Exception {
+                        SchedJobShop.Instance inst;
+                        try {
+                            inst = loaded.get();
+                        } catch (ExecutionException e) {
+                            prefetch.release();
+                            Result r = new Result();
+                            r.name = shortName;
+                            r.error = "Error: " + e.getCause();
+                            return r;
+                        }
+                        prefetch.release();
+                        if (inst == null) {
+                            Result r = new Result();
+                            r.name = shortName;
+                            r.skipped = true;
+                            return r;
+                        }
+                        return solve(inst, workers, limit, stats);
+                    }
+                }));
+            }
+            List<Result> results = new ArrayList<Result>();
+            for (Future<Result> f : pending)
+                results.add(f.get());
+            printResults(results);
+            System.out.format("%d instances, %d parallel solves x %d workers, total %.1f s%n",
+                    files.size(), parallelSolves, workers, (System.nanoTime() - start) / 1e9);
+            System.out.print(stats.summary());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error: " + e.getCause());
+        } finally {
+            io.shutdownNow();
+            solvers.shutdownNow();
+            stats.close();
+        }
+    }
+}
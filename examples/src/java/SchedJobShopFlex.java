@@ -35,22 +35,6 @@ import java.util.ArrayList;
 
 public class SchedJobShopFlex {
 
-    static class DataReader {
-
-        private StreamTokenizer st;
-
-        public DataReader(String filename) throws IOException {
-            FileInputStream fstream = new FileInputStream(filename);
-            Reader r = new BufferedReader(new InputStreamReader(fstream));
-            st = new StreamTokenizer(r);
-        }
-
-        public int next() throws IOException {
-            st.nextToken();
-            return (int) st.nval;
-        }
-    }
-
     static IloIntExpr[] arrayFromList(List<IloIntExpr> list) {
         return (IloIntExpr[])list.toArray(new IloIntExpr[list.size()]);
     }
@@ -72,7 +56,7 @@ public class SchedJobShopFlex {
             failLimit = Integer.parseInt(args[1]);
 
         IloCP cp = new IloCP();
-        DataReader data = new DataReader(filename);
+        DataReader data = InstanceCache.open(filename);
 
         try {
             int nbJobs = data.next();
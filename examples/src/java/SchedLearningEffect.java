@@ -50,22 +50,6 @@ import java.util.List;
 
 public class SchedLearningEffect {
 
-    static class DataReader {
-
-        private StreamTokenizer st;
-
-        public DataReader(String filename) throws IOException {
-            FileInputStream fstream = new FileInputStream(filename);
-            Reader r = new BufferedReader(new InputStreamReader(fstream));
-            st = new StreamTokenizer(r);
-        }
-
-        public int next() throws IOException {
-            st.nextToken();
-            return (int) st.nval;
-        }
-    }
-
     static class IntervalVarList extends ArrayList<IloIntervalVar> {
         public IloIntervalVar[] toArray() {
             return (IloIntervalVar[]) this.toArray(new IloIntervalVar[this.size()]);
@@ -85,7 +69,7 @@ public class SchedLearningEffect {
             filename = args[0];
 
         IloCP cp = new IloCP();
-        DataReader data = new DataReader(filename);
+        DataReader data = DataReader.open(filename);
         try {
             nbJobs = data.next();
             nbMachines = data.next();
@@ -39,22 +39,6 @@ import java.util.*;
 
 public class SchedOpenShop {
 
-    static class DataReader {
-
-        private StreamTokenizer st;
-
-        public DataReader(String filename) throws IOException {
-            FileInputStream fstream = new FileInputStream(filename);
-            Reader r = new BufferedReader(new InputStreamReader(fstream));
-            st = new StreamTokenizer(r);
-        }
-
-        public int next() throws IOException {
-            st.nextToken();
-            return (int) st.nval;
-        }
-    }
-
     static class IntervalVarList extends ArrayList<IloIntervalVar> {
         public IloIntervalVar[] toArray() {
             return (IloIntervalVar[]) this.toArray(new IloIntervalVar[this.size()]);
@@ -74,7 +58,7 @@ public class SchedOpenShop {
         try {
             IloCP cp = new IloCP();
 
-            DataReader data = new DataReader(filename);
+            DataReader data = DataReader.open(filename);
             int nbJobs = data.next();
             int nbMachines = data.next();
 
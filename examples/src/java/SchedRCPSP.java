@@ -39,31 +39,45 @@ import java.util.*;
 
 public class SchedRCPSP {
 
-    private static class DataReader {
-
-        private StreamTokenizer st;
-
-        public DataReader(String filename) throws IOException {
-            FileInputStream fstream = new FileInputStream(filename);
-            Reader r = new BufferedReader(new InputStreamReader(fstream));
-            st = new StreamTokenizer(r);
+    static IloObjective buildModel(IloCP cp, RCPSPInstance inst) throws IloException {
+        int nbTasks = inst.getNbTasks();
+        int nbResources = inst.getNbResources();
+        IloIntExpr[] ends = new IloIntExpr[nbTasks];
+        IloCumulFunctionExpr[] resources = new IloCumulFunctionExpr[nbResources];
+
+        for(int j = 0; j < nbResources; j++) {
+            resources[j] = cp.cumulFunctionExpr();
+        }
+        IloIntervalVar[] tasks = new IloIntervalVar[nbTasks];
+        for (int i = 0; i < nbTasks; i++) {
+            tasks[i] = cp.intervalVar(inst.duration(i));
+        }
+        for (int i = 0; i < nbTasks; i++) {
+            IloIntervalVar task = tasks[i];
+            ends[i] = cp.endOf(task);
+            for (int j = 0; j < nbResources; j++ ) {
+                int q = inst.demand(i, j);
+                if (q > 0)
+                    resources[j] = cp.sum(resources[j], cp.pulse(task, q));
+            }
+            for (int s = inst.firstSuccessor(i); s < inst.endSuccessor(i); s++ ) {
+                cp.add(cp.endBeforeStart(task, tasks[inst.successor(s)]));
+            }
         }
 
-        public int next() throws IOException {
-            st.nextToken();
-            return (int) st.nval;
+        for (int j = 0; j < nbResources; j++) {
+            cp.add(cp.le(resources[j], inst.capacity(j)));
         }
-    }
 
-    static IloIntExpr[] arrayFromList(List<IloIntExpr> list) {
-        return (IloIntExpr[]) list.toArray(new IloIntExpr[list.size()]);
+        IloObjective objective = cp.minimize(cp.max(ends));
+        cp.add(objective);
+        return objective;
     }
 
     public static void main(String[] args) throws IOException {
 
         String filename = "../../../examples/data/rcpsp_default.data";
         int failLimit = 10000;
-        int nbTasks, nbResources;
 
         if (args.length > 0)
             filename = args[0];
@@ -71,47 +85,9 @@ public class SchedRCPSP {
             failLimit = Integer.parseInt(args[1]);
 
         IloCP cp = new IloCP();
-        DataReader data = new DataReader(filename);
+        RCPSPInstance inst = RCPSPInstance.read(InstanceCache.open(filename));
         try {
-            nbTasks = data.next();
-            nbResources = data.next();
-            List<IloIntExpr> ends = new ArrayList<IloIntExpr>();
-            IloCumulFunctionExpr[] resources = new IloCumulFunctionExpr[nbResources];
-            int[] capacities = new int[nbResources];
-
-            for(int j = 0; j < nbResources; j++) {
-                capacities[j] = data.next();
-                resources[j] = cp.cumulFunctionExpr();
-            }
-            IloIntervalVar[] tasks = new IloIntervalVar[nbTasks];
-            for (int i = 0; i < nbTasks; i++) {
-                tasks[i] = cp.intervalVar();
-            }
-            for (int i = 0; i < nbTasks; i++) {
-                IloIntervalVar task = tasks[i];
-                int d, nbSucc;
-                d = data.next();
-                task.setSizeMin(d);
-                task.setSizeMax(d);
-                ends.add(cp.endOf(task));
-                for (int j = 0; j < nbResources; j++ ) {
-                    int q = data.next();
-                    if (q > 0)
-                        resources[j] = cp.sum(resources[j], cp.pulse(task, q));
-                }
-                nbSucc = data.next();
-                for (int s = 0; s < nbSucc; s++ ) {
-                    int succ = data.next();
-                    cp.add(cp.endBeforeStart(task, tasks[succ - 1]));
-                }
-            }
-
-            for (int j = 0; j < nbResources; j++) {
-                cp.add(cp.le(resources[j], capacities[j]));
-            }
-
-            IloObjective objective = cp.minimize(cp.max(arrayFromList(ends)));
-            cp.add(objective);
+            buildModel(cp, inst);
 
             cp.setParameter(IloCP.IntParam.FailLimit, failLimit);
             System.out.println("Instance \t: " + filename);
@@ -103,26 +103,13 @@ import ilog.cp.*;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
 
 public class SchedStochasticJobShop {
 
-  static class DataReader {
-
-    private StreamTokenizer st;
-
-    public DataReader(String filename) throws IOException {
-      FileInputStream fstream = new FileInputStream(filename);
-      Reader r = new BufferedReader(new InputStreamReader(fstream));
-      st = new StreamTokenizer(r);
-    }
-
-    public int next() throws IOException {
-      st.nextToken();
-      return (int) st.nval;
-    }
-  }
-
   static class IntervalVarList extends ArrayList<IloIntervalVar> {
     public IloIntervalVar[] toArray() {
       return (IloIntervalVar[]) this.toArray(new IloIntervalVar[this.size()]);
@@ -135,6 +122,17 @@ public class SchedStochasticJobShop {
                                          int[][]                  machines,
                                          int[][]                  durations,
                                          IloIntervalSequenceVar[] sequences) throws IloException {
+    return MakeScenarioSubmodel(cp, nbJobs, nbMachines, machines, durations, sequences, null);
+  }
+
+  // When ops is not null it receives operation j of job i at index i*nbMachines+j
+  static IloIntExpr MakeScenarioSubmodel(IloCP                    cp,
+                                         int                      nbJobs,
+                                         int                      nbMachines,
+                                         int[][]                  machines,
+                                         int[][]                  durations,
+                                         IloIntervalSequenceVar[] sequences,
+                                         IloIntervalVar[]         ops) throws IloException {
     IntervalVarList[] machinesOps = new IntervalVarList[nbMachines];
     String name;
     int i,j;
@@ -147,6 +145,8 @@ public class SchedStochasticJobShop {
         name = "J" + i + "_O" + j; 
         IloIntervalVar ti = cp.intervalVar(durations[i][j], name);
         machinesOps[machines[i][j]].add(ti);
+        if (ops != null)
+          ops[i * nbMachines + j] = ti;
         if (j > 0)
           cp.add(cp.endBeforeStart(prec, ti));
         prec = ti;
@@ -165,17 +165,103 @@ public class SchedStochasticJobShop {
       return (IloIntExpr[]) list.toArray(new IloIntExpr[list.size()]);
   }
 
+  // Operation ids in sequence on every machine of a solved model. The variables
+  // returned by getFirst/getNext are matched by their unique name "J<i>_O<j>",
+  // not as Java objects.
+  static int[][] MachineOrders(IloCP cp, IloIntervalSequenceVar[] sequences, IloIntervalVar[] ops) throws IloException {
+    Map<String, Integer> id = new HashMap<String, Integer>();
+    for (int v = 0; v < ops.length; v++)
+      id.put(ops[v].getName(), v);
+    int[][] orders = new int[sequences.length][];
+    for (int j = 0; j < sequences.length; j++) {
+      List<Integer> order = new ArrayList<Integer>();
+      IloIntervalVar op = cp.getFirst(sequences[j]);
+      order.add(OperationId(id, op));
+      for (; !op.equals(cp.getLast(sequences[j])); op = cp.getNext(sequences[j], op))
+        order.add(OperationId(id, cp.getNext(sequences[j], op)));
+      orders[j] = new int[order.size()];
+      for (int k = 0; k < orders[j].length; k++)
+        orders[j][k] = order.get(k);
+    }
+    return orders;
+  }
+
+  static int OperationId(Map<String, Integer> id, IloIntervalVar op) throws IloException {
+    Integer v = id.get(op.getName());
+    if (v == null)
+      throw new IloException("Unknown operation " + op.getName() + " in machine sequence");
+    return v;
+  }
+
+  // Step 1 of the decomposition: each scenario is solved alone as a deterministic
+  // job-shop, in parallel with one worker per model. Returns the machine orders
+  // of every scenario, null where no solution was found.
+  static int[][][] SolveScenarios(final int nbJobs, final int nbMachines, final int[][] machines,
+                                  int[][][] durations, final int failLimit) throws IloException {
+    int nbThreads = Runtime.getRuntime().availableProcessors();
+    ExecutorService pool = Executors.newFixedThreadPool(nbThreads);
+    try {
+      List<Future<int[][]>> results = new ArrayList<Future<int[][]>>();
+      for (final int[][] scenario : durations) {
+        results.add(pool.submit(new Callable<int[][]>() {
+          public int[][] call() throws IloException {
+            IloCP cp = new IloCP();
+            try {
+              IloIntervalSequenceVar[] sequences = new IloIntervalSequenceVar[nbMachines];
+              IloIntervalVar[] ops = new IloIntervalVar[nbJobs * nbMachines];
+              IloIntExpr makespan = MakeScenarioSubmodel(cp, nbJobs, nbMachines, machines, scenario, sequences, ops);
+              cp.add(cp.minimize(makespan));
+              cp.setParameter(IloCP.IntParam.Workers, 1);
+              cp.setParameter(IloCP.IntParam.FailLimit, failLimit);
+              cp.setParameter(IloCP.IntParam.LogVerbosity, IloCP.ParameterValues.Quiet);
+              return cp.solve() ? MachineOrders(cp, sequences, ops) : null;
+            } finally {
+              cp.end();
+            }
+          }
+        }));
+      }
+      int[][][] orders = new int[durations.length][][];
+      for (int k = 0; k < durations.length; k++)
+        orders[k] = results.get(k).get();
+      return orders;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IloException)
+        throw (IloException) e.getCause();
+      throw new IloException("Scenario solve failed: " + e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IloException("Scenario solve interrupted");
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
   public static void main(String[] args) throws IOException {
 
     String filename = "../../../examples/data/stochastic_jobshop_default.data";
     int failLimit = 250000;
-
-    if (args.length > 0)
-        filename = args[0];
-    if (args.length > 1)
-        failLimit = Integer.parseInt(args[1]);
-
-    DataReader data = new DataReader(filename);
+    int scenarioFailLimit = 10000;
+    boolean decompose = false;
+    int nbSamples = 0;
+
+    List<String> positional = new ArrayList<String>();
+    for (int a = 0; a < args.length; a++) {
+      if (args[a].equals("-decompose"))
+        decompose = true;
+      else if (args[a].equals("-samples") && a + 1 < args.length)
+        nbSamples = Integer.parseInt(args[++a]);
+      else
+        positional.add(args[a]);
+    }
+    if (positional.size() > 0)
+        filename = positional.get(0);
+    if (positional.size() > 1)
+        failLimit = Integer.parseInt(positional.get(1));
+    if (positional.size() > 2)
+        scenarioFailLimit = Integer.parseInt(positional.get(2));
+
+    DataReader data = DataReader.open(filename);
     try {
       // Data reading
       int nbJobs, nbMachines, nbScenarios;
@@ -205,13 +291,15 @@ public class SchedStochasticJobShop {
  
       IloCP cp = new IloCP();
       IloIntervalSequenceVar[] refSequences = new IloIntervalSequenceVar[nbMachines];
+      IloIntervalVar[][] scenarioOps = new IloIntervalVar[nbScenarios][];
       IloIntExpr sumMakespan = cp.intExpr();    
       for (k = 0; k < nbScenarios; k++) {
         IloIntervalSequenceVar[] scenarioSequences = new IloIntervalSequenceVar[nbMachines];
+        scenarioOps[k] = new IloIntervalVar[nbJobs * nbMachines];
         IloIntExpr scenarioMakespan = 
           MakeScenarioSubmodel(cp, nbJobs, nbMachines,
                                machines, durations[k],
-                               scenarioSequences);
+                               scenarioSequences, scenarioOps[k]);
         // Objective function is aggregated
         sumMakespan = cp.sum(sumMakespan, scenarioMakespan);
         // For each machine, a sameSequence constraint is posted across all scenarios
@@ -230,6 +318,50 @@ public class SchedStochasticJobShop {
       cp.setParameter(IloCP.IntParam.FailLimit, failLimit);
       cp.setParameter(IloCP.IntParam.LogPeriod, 1000000);
       System.out.println("Instance \t: " + filename);
+
+      // Durations indexed by operation id for the pure-Java evaluators
+      int[][] flat = new int[nbScenarios][nbJobs * nbMachines];
+      for (k = 0; k < nbScenarios; k++)
+        for (i = 0; i < nbJobs; i++)
+          for (j = 0; j < nbMachines; j++)
+            flat[k][i * nbMachines + j] = durations[k][i][j];
+
+      if (decompose) {
+        // Step 1: candidate sequences from every scenario solved alone
+        long start = System.nanoTime();
+        int[][][] candidates = SolveScenarios(nbJobs, nbMachines, machines, durations, scenarioFailLimit);
+        System.out.format("Scenario solves \t: %d in %.2f s%n", nbScenarios, (System.nanoTime() - start) / 1e9);
+
+        // Step 2: every candidate evaluated against all scenarios
+        JobShopGraph best = null;
+        double bestValue = Double.MAX_VALUE;
+        for (int[][] orders : candidates) {
+          if (orders == null)
+            continue;
+          JobShopGraph graph = new JobShopGraph(machines, orders);
+          double value = graph.expectedMakespan(flat);
+          if (value < bestValue) {
+            bestValue = value;
+            best = graph;
+          }
+        }
+
+        // Step 3: the best candidate, scheduled in every scenario, is the starting point
+        if (best != null) {
+          System.out.println("Best candidate \t: expected makespan " + bestValue);
+          IloSolution sol = cp.solution();
+          int[] opStart = new int[nbJobs * nbMachines];
+          int[] opEnd = new int[nbJobs * nbMachines];
+          for (k = 0; k < nbScenarios; k++) {
+            best.schedule(flat[k], opStart, opEnd);
+            for (int v = 0; v < opStart.length; v++) {
+              sol.setStart(scenarioOps[k][v], opStart[v]);
+              sol.setEnd(scenarioOps[k][v], opEnd[v]);
+            }
+          }
+          cp.setStartingPoint(sol);
+        }
+      }
       if (cp.solve()) {
         System.out.println("Expected makespan \t: " + cp.getObjValue());
         for (j=0; j<nbMachines; ++j) {
@@ -240,11 +372,27 @@ public class SchedStochasticJobShop {
             System.out.print(op.getName()+ "\t");
           System.out.println(op.getName()+ "\t");
         }
+        if (nbSamples > 0) {
+          // Scores the sequences under uniform durations spanning the scenario values
+          JobShopGraph graph = new JobShopGraph(machines, MachineOrders(cp, refSequences, scenarioOps[0]));
+          MakespanSimulator sim = MakespanSimulator.fromScenarios(graph, flat);
+          int nbThreads = Runtime.getRuntime().availableProcessors();
+          long start = System.nanoTime();
+          double mc = sim.monteCarlo(nbSamples, 1, nbThreads);
+          double mcTime = (System.nanoTime() - start) / 1e9;
+          start = System.nanoTime();
+          double ds = sim.descriptive(nbSamples, 1, nbThreads);
+          double dsTime = (System.nanoTime() - start) / 1e9;
+          System.out.format("Simulated makespan \t: Monte-Carlo %.1f (%.2f s), descriptive %.1f (%.2f s), %d samples%n",
+                            mc, mcTime, ds, dsTime, nbSamples);
+        }
       } else {
         System.out.println("No solution found.");
       }
     } catch (IloException e) {
       System.err.println("Error: " + e);
+    } catch (InterruptedException e) {
+      System.err.println("Interrupted: " + e);
     }
   }
 }
@@ -40,175 +40,215 @@ import ilog.concert.*;
 
 
 public class Sports {
+    // Version of Game() and GameTuples(); bump it when they change so that
+    // cached tuples are not reused
+    static final int SPORTS_RULES_VERSION = 1;
+
     public static int Game(int h, int a, int n) {
         if (a>h)
             return h * (n - 1) + a - 1;
         else
             return h * (n - 1) + a;
     }
+    // (home, away, game) for every ordered pair of distinct teams
+    public static int[][] GameTuples(int n) {
+        int[][] tuples = new int[n * (n - 1)][];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j)
+                    tuples[k++] = new int[] { i, j, Game(i, j, n) };
+            }
+        }
+        return tuples;
+    }
     public static int min(int a, int b) {
         return (a >= b ? b : a);
     }
-    public static void main(String[] args) {
-        try {   
-            int n = 10;
-            if (args.length > 0)
-                n = Integer.parseInt(args[0]);
-            if ((n % 2) == 1)
-                n++;
-            System.out.println("Finding schedule for " + n + " teams");
-            int nbWeeks = 2 * (n - 1);
-            int nbGamesPerWeek = n / 2;
-            int nbGames = n * (n - 1);
-            IloCP cp = new IloCP();
+    static class Model {
+        IloIntVar[][] home;
+        IloIntVar[][] away;
+        IloIntVar[] allGames;
+        IloIntVar breaks;
+    }
 
-            IloIntVar[][] games = new IloIntVar[nbWeeks][];
-            IloIntVar[][] home = new IloIntVar[nbWeeks][];
-            IloIntVar[][] away = new IloIntVar[nbWeeks][];
- 
-            for (int i = 0; i < nbWeeks; i++) {
-                home[i]  = cp.intVarArray(nbGamesPerWeek, 0, n - 1);
-                away[i]  = cp.intVarArray(nbGamesPerWeek, 0, n - 1);
-                games[i] = cp.intVarArray(nbGamesPerWeek, 0, nbGames - 1);
-            }
-            //
-            // For each play slot, set up correspondance between game id,
-            // home team, and away team
-            // 
-            IloIntTupleSet gha = cp.intTable(3);
-            int[] tuple = new int[3];
-            for (int i = 0; i < n; i++) {
-                tuple[0] = i;
-                for (int j = 0; j < n; j++) {
-                    if (i != j) {
-                        tuple[1] = j;
-                        tuple[2] = Game(i, j, n);
-                        cp.addTuple(gha, tuple);
-                    }
-                }
+    // Double round robin of n teams, n even, with the game tuples of the tuple cache
+    public static Model buildModel(IloCP cp, final int n) throws IloException {
+        String name = "sports-gha-" + new ModelCache.Key("Sports", SPORTS_RULES_VERSION).add(n).hex();
+        int[][] gha = TupleTables.cached(name, 3, new TupleTables.Generator() {
+            public int[][] generate() {
+                return GameTuples(n);
             }
+        });
+        return buildModel(cp, n, gha);
+    }
 
-            for (int i = 0; i < nbWeeks; i++) {
-                for (int j = 0; j < nbGamesPerWeek; j++) {
-                    IloIntVar[] vars = cp.intVarArray(3);
-                    vars[0]= home[i][j];
-                    vars[1]= away[i][j];
-                    vars[2]= games[i][j];
-                    cp.add(cp.allowedAssignments(vars, gha));
-                }
+    // Same model with given (home, away, game) tuples, see GameTuples
+    public static Model buildModel(IloCP cp, int n, int[][] ghaTuples) throws IloException {
+        int nbWeeks = 2 * (n - 1);
+        int nbGamesPerWeek = n / 2;
+        int nbGames = n * (n - 1);
+        Model m = new Model();
+
+        IloIntVar[][] games = new IloIntVar[nbWeeks][];
+        IloIntVar[][] home = new IloIntVar[nbWeeks][];
+        IloIntVar[][] away = new IloIntVar[nbWeeks][];
+ 
+        for (int i = 0; i < nbWeeks; i++) {
+            home[i]  = cp.intVarArray(nbGamesPerWeek, 0, n - 1);
+            away[i]  = cp.intVarArray(nbGamesPerWeek, 0, n - 1);
+            games[i] = cp.intVarArray(nbGamesPerWeek, 0, nbGames - 1);
+        }
+        //
+        // For each play slot, set up correspondance between game id,
+        // home team, and away team
+        // 
+        IloIntTupleSet gha = TupleTables.of(cp, ghaTuples, 3);
+
+        for (int i = 0; i < nbWeeks; i++) {
+            for (int j = 0; j < nbGamesPerWeek; j++) {
+                IloIntVar[] vars = cp.intVarArray(3);
+                vars[0]= home[i][j];
+                vars[1]= away[i][j];
+                vars[2]= games[i][j];
+                cp.add(cp.allowedAssignments(vars, gha));
             }
-            //
-            // All teams play each week
-            //
-            for (int i = 0; i < nbWeeks; i++) {
-                IloIntVar[] teamsThisWeek = cp.intVarArray(n);
-                for (int j=0; j < nbGamesPerWeek; j++) {
-                    teamsThisWeek[j]= home[i][j];
-                    teamsThisWeek[nbGamesPerWeek+j]=away[i][j];
-                }
-                cp.add(cp.allDiff(teamsThisWeek));
+        }
+        //
+        // All teams play each week
+        //
+        for (int i = 0; i < nbWeeks; i++) {
+            IloIntVar[] teamsThisWeek = cp.intVarArray(n);
+            for (int j=0; j < nbGamesPerWeek; j++) {
+                teamsThisWeek[j]= home[i][j];
+                teamsThisWeek[nbGamesPerWeek+j]=away[i][j];
             }
-            //
-            // Dual representation: for each game id, the play slot is maintained
-            // 
-            IloIntVar[] weekOfGame= cp.intVarArray(nbGames, 0, nbWeeks - 1);
-            IloIntVar[] allGames= cp.intVarArray(nbGames);
-            IloIntVar[] allSlots= cp.intVarArray(nbGames, 0, nbGames - 1);
-            for (int i = 0; i < nbWeeks; i++)
-                for (int j = 0; j < nbGamesPerWeek; j++)
-                    allGames[i*nbGamesPerWeek+j]=games[i][j];
-            cp.add(cp.inverse(allGames, allSlots));
-            for (int i = 0; i < nbGames; i++)
-                cp.add(cp.eq(weekOfGame[i], cp.div(allSlots[i], nbGamesPerWeek)));
-            //
-            // Two half schedules.  Cannot play the same pair twice in the same half.
-            // Plus, impose a minimum number of weeks between two games involving
-            // the same teams (up to six weeks)
-            //
-            int mid = nbWeeks / 2;
-            int overlap = 0;
-            if (n >= 6)
-                overlap = min(n / 2, 6);
-            for (int i = 0; i < n; i++) {
-                for (int j = i + 1; j < n; j++) {
-                    int g1 = Game(i, j, n);
-                    int g2 = Game(j, i, n); 
-                    cp.add(cp.equiv(cp.ge(weekOfGame[g1], mid) , cp.lt(weekOfGame[g2], mid)));
-                    // Six week difference...
-                    if (overlap != 0)
-                        cp.add(cp.ge(cp.abs( cp.diff(weekOfGame[g1], weekOfGame[g2])), overlap));
-                }
+            cp.add(cp.allDiff(teamsThisWeek));
+        }
+        //
+        // Dual representation: for each game id, the play slot is maintained
+        // 
+        IloIntVar[] weekOfGame= cp.intVarArray(nbGames, 0, nbWeeks - 1);
+        IloIntVar[] allGames= cp.intVarArray(nbGames);
+        IloIntVar[] allSlots= cp.intVarArray(nbGames, 0, nbGames - 1);
+        for (int i = 0; i < nbWeeks; i++)
+            for (int j = 0; j < nbGamesPerWeek; j++)
+                allGames[i*nbGamesPerWeek+j]=games[i][j];
+        cp.add(cp.inverse(allGames, allSlots));
+        for (int i = 0; i < nbGames; i++)
+            cp.add(cp.eq(weekOfGame[i], cp.div(allSlots[i], nbGamesPerWeek)));
+        //
+        // Two half schedules.  Cannot play the same pair twice in the same half.
+        // Plus, impose a minimum number of weeks between two games involving
+        // the same teams (up to six weeks)
+        //
+        int mid = nbWeeks / 2;
+        int overlap = 0;
+        if (n >= 6)
+            overlap = min(n / 2, 6);
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                int g1 = Game(i, j, n);
+                int g2 = Game(j, i, n); 
+                cp.add(cp.equiv(cp.ge(weekOfGame[g1], mid) , cp.lt(weekOfGame[g2], mid)));
+                // Six week difference...
+                if (overlap != 0)
+                    cp.add(cp.ge(cp.abs( cp.diff(weekOfGame[g1], weekOfGame[g2])), overlap));
             }
+        }
 
-            //
-            // Can't have three homes or three aways in a row.
-            //
-            IloIntVar[][] playHome = new IloIntVar[n][];
-            for (int i = 0; i < n; i++) {
-                playHome[i] = cp.intVarArray(nbWeeks, 0, 1);
-                for (int j = 0; j < nbWeeks; j++)
-                    cp.add(cp.eq(playHome[i][j], cp.count(home[j], i)));
-                for (int j = 0; j < nbWeeks -3; j++) {
-                    IloIntVar[] window = cp.intVarArray(3);
-                    for (int k = j; k < j + 3; k++)
-                        window[k-j]=playHome[i][k];
-                    IloIntExpr windowSum = cp.sum(window);
-                    cp.add(cp.ge(windowSum, 1));
-                    cp.add(cp.le(windowSum, 2));
-                }
+        //
+        // Can't have three homes or three aways in a row.
+        //
+        IloIntVar[][] playHome = new IloIntVar[n][];
+        for (int i = 0; i < n; i++) {
+            playHome[i] = cp.intVarArray(nbWeeks, 0, 1);
+            for (int j = 0; j < nbWeeks; j++)
+                cp.add(cp.eq(playHome[i][j], cp.count(home[j], i)));
+            for (int j = 0; j < nbWeeks -3; j++) {
+                IloIntVar[] window = cp.intVarArray(3);
+                for (int k = j; k < j + 3; k++)
+                    window[k-j]=playHome[i][k];
+                IloIntExpr windowSum = cp.sum(window);
+                cp.add(cp.ge(windowSum, 1));
+                cp.add(cp.le(windowSum, 2));
             }
+        }
 
-            //
-            // If we start the season home, we finish away and vice versa.
-            //
-            for (int i = 0; i < n; i++)
-                cp.add(cp.neq(playHome[i][0], playHome[i][nbWeeks-1]));
+        //
+        // If we start the season home, we finish away and vice versa.
+        //
+        for (int i = 0; i < n; i++)
+            cp.add(cp.neq(playHome[i][0], playHome[i][nbWeeks-1]));
 
-            //
-            // Objective: minimize the number of `breaks'.  A break is
-            //            two consecutive home or away matches for a
-            //            particular team
-            IloIntVar[] teamBreaks= cp.intVarArray(n, 0, nbWeeks / 2);
-            for (int i = 0; i < n; i++) {
-                IloIntExpr nbreaks= cp.constant(0);
-                for (int j = 1; j < nbWeeks; j++)
-                    nbreaks = cp.sum(nbreaks, 
-                                     cp.intExpr(cp.eq(playHome[i][j-1],
-                                                      playHome[i][j])));
-                cp.add(cp.eq(teamBreaks[i], nbreaks));
-            }
-            IloIntVar breaks = cp.intVar(n - 2, n * (nbWeeks / 2));
-            cp.add(cp.eq(breaks, cp.sum(teamBreaks)));
-            cp.add(cp.minimize(breaks));
+        //
+        // Objective: minimize the number of `breaks'.  A break is
+        //            two consecutive home or away matches for a
+        //            particular team
+        IloIntVar[] teamBreaks= cp.intVarArray(n, 0, nbWeeks / 2);
+        for (int i = 0; i < n; i++) {
+            IloIntExpr nbreaks= cp.constant(0);
+            for (int j = 1; j < nbWeeks; j++)
+                nbreaks = cp.sum(nbreaks, 
+                                 cp.intExpr(cp.eq(playHome[i][j-1],
+                                                  playHome[i][j])));
+            cp.add(cp.eq(teamBreaks[i], nbreaks));
+        }
+        IloIntVar breaks = cp.intVar(n - 2, n * (nbWeeks / 2));
+        cp.add(cp.eq(breaks, cp.sum(teamBreaks)));
+        cp.add(cp.minimize(breaks));
 
-            //
-            // Redundant constraints
-            //
-            
-            // Each team plays home the same number of times as away
-            for (int i = 0; i < n; i++)
-                cp.add(cp.eq(cp.sum(playHome[i]),nbWeeks / 2));
+        //
+        // Redundant constraints
+        //
+        
+        // Each team plays home the same number of times as away
+        for (int i = 0; i < n; i++)
+            cp.add(cp.eq(cp.sum(playHome[i]),nbWeeks / 2));
 
-            // Breaks must be even for each team
-            for (int i = 0; i < n; i++)
-                cp.add(cp.eq(cp.modulo(teamBreaks[i], 2),0));
+        // Breaks must be even for each team
+        for (int i = 0; i < n; i++)
+            cp.add(cp.eq(cp.modulo(teamBreaks[i], 2),0));
 
-            //    
-            // Symmetry breaking constraints
-            // 
-            
-            // Teams are interchangeable.  Fix first week.
-            // Also breaks reflection symmetry of the whole schedule.
-            for (int i = 0; i < nbGamesPerWeek; i++) {
-                cp.add(cp.eq(home[0][i], i * 2));
-                cp.add(cp.eq(away[0][i], i * 2 + 1));
-            }
+        //    
+        // Symmetry breaking constraints
+        // 
+        
+        // Teams are interchangeable.  Fix first week.
+        // Also breaks reflection symmetry of the whole schedule.
+        for (int i = 0; i < nbGamesPerWeek; i++) {
+            cp.add(cp.eq(home[0][i], i * 2));
+            cp.add(cp.eq(away[0][i], i * 2 + 1));
+        }
 
-            // Order of games in each week is arbitrary.
-            // Break symmetry by forcing an order.
-            for (int i = 0; i < nbWeeks; i++)
-                for (int j = 1; j < nbGamesPerWeek; j++)
-                    cp.add(cp.gt(games[i][j], games[i][j-1]));
+        // Order of games in each week is arbitrary.
+        // Break symmetry by forcing an order.
+        for (int i = 0; i < nbWeeks; i++)
+            for (int j = 1; j < nbGamesPerWeek; j++)
+                cp.add(cp.gt(games[i][j], games[i][j-1]));
+        m.home = home;
+        m.away = away;
+        m.allGames = allGames;
+        m.breaks = breaks;
+        return m;
+    }
+
+    public static void main(String[] args) {
+        try {   
+            int n = 10;
+            if (args.length > 0)
+                n = Integer.parseInt(args[0]);
+            if ((n % 2) == 1)
+                n++;
+            System.out.println("Finding schedule for " + n + " teams");
+            int nbWeeks = 2 * (n - 1);
+            int nbGamesPerWeek = n / 2;
+            IloCP cp = new IloCP();
+            Model model = buildModel(cp, n);
+            IloIntVar[][] home = model.home;
+            IloIntVar[][] away = model.away;
+            IloIntVar[] allGames = model.allGames;
+            IloIntVar breaks = model.breaks;
 
             cp.setParameter(IloCP.DoubleParam.TimeLimit, 20); 
             cp.setParameter(IloCP.IntParam.LogPeriod, 10000);
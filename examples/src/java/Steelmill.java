@@ -95,10 +95,11 @@ public class Steelmill {
           indexValue++;
         }
       }
-      IloIntExpr obj = cp.constant(0);
+      SumBuilder objTerms = new SumBuilder(cp, nbSlabs);
       for(m = 0; m < nbSlabs; m++){
-        obj = cp.sum(obj,  cp.element(lossValues, load[m]));  
+        objTerms.add(cp.element(lossValues, load[m]));
       }
+      IloIntExpr obj = objTerms.toExpr();
       cp.add(cp.minimize(obj));
 
       // - A symmetry breaking constraint that is useful for small instances
@@ -36,86 +36,79 @@ import ilog.concert.*;
 import ilog.cp.*;
 
 import java.io.*;
-import java.util.Iterator;
-import java.util.Vector;
 
 public class Talent extends IloCP {
 
   public static IloCP cp;
 
-  private int numActors, numScenes;
-  private int[] actorPay, sceneDuration;
-  private IloIntSet[] actorInScene;
-  private IloIntExpr idleCost;
-  private IloIntVar scene[];
-
-  public Talent(String fileName) throws IOException, IloException {
-
-    cp = new IloCP();
-    this.readData(fileName);
-    this.buildModel();
-  }
-
-  private static class DataReader {
-
-    private StreamTokenizer st;
-
-    public DataReader(String filename) throws IOException {
-      FileInputStream fstream = new FileInputStream(filename);
-      Reader r = new BufferedReader(new InputStreamReader(fstream));
-      st = new StreamTokenizer(r);
-    }
-
-    public int next() throws IOException {
-      st.nextToken();
-      return (int) st.nval;
+  private Instance inst;
+  private Model model;
+
+  // Data of an instance, read without creating Concert objects
+  static class Instance {
+    int numActors, numScenes;
+    int[] actorPay, sceneDuration;
+    int[][] actorScenes;      // scenes of each actor, in increasing order
+    boolean[][] inScene;      // inScene[a][s]: actor a plays in scene s
+
+    Instance(DataReader data) throws IOException {
+
+      numActors = data.next();
+      actorPay = new int[numActors];
+      for (int a = 0; a < numActors; a++)
+        actorPay[a] = data.next();
+
+      numScenes = data.next();
+      sceneDuration = new int[numScenes];
+      for (int s = 0; s < numScenes; s++)
+        sceneDuration[s] = data.next();
+
+      actorScenes = new int[numActors][];
+      inScene = new boolean[numActors][numScenes];
+      for (int a = 0; a < numActors; a++) {
+        int nbScene = 0;
+        for (int s = 0; s < numScenes; s++) {
+          inScene[a][s] = (data.next() != 0);
+          if (inScene[a][s])
+            nbScene++;
+        }
+        actorScenes[a] = new int[nbScene];
+        int n = 0;
+        for (int s = 0; s < numScenes; s++) {
+          if (inScene[a][s]) {
+            actorScenes[a][n] = s;
+            n++;
+          }
+        }
+      }
     }
   }
 
-  private void readData(String fileName) throws IOException, IloException {
-
-    DataReader data = new DataReader(fileName);
-
-    numActors = data.next();
-    actorPay = new int[numActors];
-    for (int a = 0; a < numActors; a++)
-      actorPay[a] = data.next();
+  static class Model {
+    IloIntVar[] scene;
+    IloIntExpr idleCost;
+  }
 
-    numScenes = data.next();
-    sceneDuration = new int[numScenes];
-    for (int s = 0; s < numScenes; s++)
-      sceneDuration[s] = data.next();
+  public Talent(String fileName) throws IOException, IloException {
 
-    actorInScene = new IloIntSet[numActors];
-    for (int a = 0; a < numActors; a++) {
-      int[] inScene = new int[numScenes];
-      int nbScene = 0;
-      for (int s = 0; s < numScenes; s++) {
-        inScene[s] = data.next();
-        if (inScene[s] != 0)
-          nbScene++;
-      }
-      int[] playScene = new int[nbScene];
-      int n = 0;
-      for (int s = 0; s < numScenes; s++) {
-        if (inScene[s] != 0) {
-          playScene[n] = s;
-          n++;
-        }
-      }
-      actorInScene[a] = cp.intSet(playScene);
-    }
+    cp = new IloCP();
+    inst = new Instance(new DataReader(fileName));
+    model = buildModel(cp, inst);
   }
 
-  private void buildModel() throws IloException {
+  static Model buildModel(IloCP cp, Instance inst) throws IloException {
+
+    int numActors = inst.numActors;
+    int numScenes = inst.numScenes;
+    Model model = new Model();
 
     // Create the decision variables, cost, and the model
-    scene = new IloIntVar[numScenes];
+    IloIntVar[] scene = new IloIntVar[numScenes];
     for (int s = 0; s < numScenes; s++)
       scene[s] = cp.intVar(0, numScenes - 1);
 
-    // Expression representing the global cost
-    idleCost = cp.intExpr();
+    // Terms of the global cost: the pay of each actor times each wait
+    SumBuilder idleTerms = new SumBuilder(cp, numActors * numScenes);
 
     // Make the slot-based secondary model
     IloIntVar[] slot = new IloIntVar[numScenes];
@@ -125,58 +118,60 @@ public class Talent extends IloCP {
 
     // Loop over all actors, building cost
     for (int a = 0; a < numActors; a++) {
-      // Expression for the waiting time for this actor
-      IloIntExpr actorWait = cp.intExpr();
-
       // Calculate the first and last slots where this actor plays
-      Vector<IloIntVar> position = new Vector<IloIntVar>();
-
-      Iterator it = actorInScene[a].iterator();
-      while (it.hasNext())
-        position.add(slot[(Integer)it.next()]);
+      IloIntVar[] position = new IloIntVar[inst.actorScenes[a].length];
+      for (int k = 0; k < position.length; k++)
+        position[k] = slot[inst.actorScenes[a][k]];
 
-      IloIntExpr firstSlot = cp.min(position.toArray(new IloIntVar[position.size()]));
-      IloIntExpr lastSlot = cp.max(position.toArray(new IloIntVar[position.size()]));
+      IloIntExpr firstSlot = cp.min(position);
+      IloIntExpr lastSlot = cp.max(position);
 
       // If an actor is not in a scene, he waits
       // if he is on set when the scene is filmed
       for (int s = 0; s < numScenes; s++) {
-        if (!actorInScene[a].contains(s)) { // not in scene
+        if (!inst.inScene[a][s]) { // not in scene
           IloIntExpr wait = cp.and(cp.le(firstSlot, slot[s]), cp.le(
               slot[s], lastSlot));
-          actorWait = cp.sum(actorWait, cp.prod(sceneDuration[s],
-              wait));
+          idleTerms.add(inst.actorPay[a] * inst.sceneDuration[s], wait);
         }
       }
-
-      // Accumulate the cost of waiting time for this actor
-      idleCost = cp.sum(idleCost, cp.prod(actorPay[a], actorWait));
     }
-    cp.add(cp.minimize(idleCost));
+    model.scene = scene;
+    model.idleCost = idleTerms.toExpr();
+    cp.add(cp.minimize(model.idleCost));
+    return model;
   }
 
-  private void display() {
+  private void display() throws IOException, IloException {
 
-    System.out.println("Solution of idle cost " + (int) cp.getValue(idleCost));
-    System.out.print("Order:");
-    for (int s = 0; s < numScenes; s++)
-      System.out.print(" " + ((int) cp.getValue(scene[s]) + 1));
-    System.out.println();
+    int cost = (int) cp.getValue(model.idleCost);
+    int[] order = SolutionWriter.values(cp, model.scene);
+    StringBuilder sb = new StringBuilder();
+    sb.append("Solution of idle cost ").append(cost).append('\n');
+    sb.append("Order:");
+    for (int s = 0; s < inst.numScenes; s++)
+      sb.append(' ').append(order[s] + 1);
+    sb.append('\n');
 
     // Give more detailed information on the schedule
-    for (int a = 0; a < numActors; a++) {
-      System.out.print("|");
-      for (int s = 0; s < numScenes; s++) {
-        int sc = (int) cp.getValue(scene[s]);
-        for (int d = 0; d < sceneDuration[sc]; d++) {
-          if (actorInScene[a].contains(sc))
-            System.out.print("X");
-          else
-            System.out.print(".");
-        }
-        System.out.print("|");
+    for (int a = 0; a < inst.numActors; a++) {
+      sb.append('|');
+      for (int s = 0; s < inst.numScenes; s++) {
+        int sc = order[s];
+        char mark = inst.inScene[a][sc] ? 'X' : '.';
+        for (int d = 0; d < inst.sceneDuration[sc]; d++)
+          sb.append(mark);
+        sb.append('|');
       }
-      System.out.println("  Rate = " + actorPay[a] + ")");
+      sb.append("  Rate = ").append(inst.actorPay[a]).append(")\n");
+    }
+    System.out.print(sb);
+
+    SolutionWriter out = SolutionWriter.fromProperty();
+    if (out != null) {
+      out.write("idleCost", cost);
+      out.write("order", order);
+      out.close();
     }
   }
 
@@ -65,11 +65,20 @@ Solving
 import ilog.cp.*;
 import ilog.concert.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
 public class Teambuilding {
     static int nbPersons=60;
     static int nbTeams=10;
     static int teamSize=6;
     static int nbServices = 6;
+
+    // Version of the team rules hard-coded in EnumerateTeams (services,
+    // service cap, exclusions); bump it when they change so that cached
+    // tuples are not reused
+    static final int TEAM_RULES_VERSION = 1;
     
     static int coaching[];
     
@@ -77,10 +86,64 @@ public class Teambuilding {
        MakeTeamTuples return a IloIntTupleSet containing all the 
        possible configurations of a team. 
        The team members in a tuple are ordered to break symmetry.
+       The configurations are enumerated once and then read back
+       from the tuple cache (see TupleTables.java).
     */
     public static IloIntTupleSet MakeTeamTuples(IloCP mainCP) {
         try {
-            IloCP cp = new IloCP();
+            String name = "teambuilding-" + new ModelCache.Key("Teambuilding", TEAM_RULES_VERSION)
+                .add(nbPersons).add(teamSize).add(nbServices).add(coaching).hex();
+            return TupleTables.cached(mainCP, name, teamSize, new TupleTables.Generator() {
+                public int[][] generate() throws IloException {
+                    return EnumerateTeams();
+                }
+            });
+        } catch (IloException e) {
+            System.out.println("Error: " + e);
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /*
+       EnumerateTeams splits the enumeration on the first (smallest)
+       team member: each value is searched by its own IloCP on a thread
+       pool and the partitions are concatenated in order.
+    */
+    public static int[][] EnumerateTeams() throws IloException {
+        int nbParts = nbPersons - teamSize + 1;
+        int nbThreads = Math.min(nbParts, Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(nbThreads);
+        try {
+            List<Future<List<int[]>>> parts = new ArrayList<Future<List<int[]>>>();
+            for (int first = 0; first < nbParts; first++) {
+                final int firstMember = first;
+                parts.add(pool.submit(new Callable<List<int[]>>() {
+                    public List<int[]> call() throws IloException {
+                        return EnumerateTeams(firstMember);
+                    }
+                }));
+            }
+            List<int[]> teams = new ArrayList<int[]>();
+            for (Future<List<int[]>> part : parts)
+                teams.addAll(part.get());
+            return teams.toArray(new int[teams.size()][]);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IloException)
+                throw (IloException) e.getCause();
+            throw new IloException("Team enumeration failed: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IloException("Team enumeration interrupted");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // All the teams whose first member is firstMember
+    static List<int[]> EnumerateTeams(int firstMember) throws IloException {
+        IloCP cp = new IloCP();
+        try {
             int i;
             int[] newEmployee = new int[nbPersons]; 
             int[] service  = new int[nbPersons]; 
@@ -96,11 +159,9 @@ public class Teambuilding {
                 else if (i < 55) service[i] = 4; 
                 else             service[i] = 5;
             }
-            
-            IloIntTupleSet ts = mainCP.intTable(teamSize);
-            
+        
             IloIntVar[] teamMembers = cp.intVarArray(teamSize, 0, nbPersons-1);
-            
+        
             //number of new employees among the teamMembers = number 
             // of teamMembers / 2
             IloIntExpr nbNewEmployees =  cp.constant(0);
@@ -108,52 +169,55 @@ public class Teambuilding {
                 nbNewEmployees = cp.sum(nbNewEmployees, 
                                         cp.element(newEmployee, teamMembers[i]));
             cp.add(cp.eq(nbNewEmployees, teamSize / 2));
-            
+        
             //a new employee and his coach must be in the same team
             for (i = 0; i < 60; i += 2) {
                 if (coaching[i] >= 0) {
                     cp.add(cp.eq( cp.count(teamMembers, i), cp.count(teamMembers, coaching[i])));
                 }           
             }
-            
+        
             IloIntVar[] serviceVar = cp.intVarArray(teamSize, 0, nbServices - 1); 
             for (i = 0; i < teamSize; i++)
                 cp.add(cp.eq(serviceVar[i], cp.element(service, teamMembers[i])));
-            
+        
             // at most 4 people of the same service
             for (i = 0; i < nbServices; i++) {
                 cp.add(cp.le(cp.count(serviceVar, i),4));
-                
-            }
             
+            }
+        
             // Persons of Services A and B cannot be in the same team
             // Persons of Services E and F cannot be in the same team
             cp.add( cp.or(cp.eq(cp.count(serviceVar, 0), 0), cp.eq(cp.count(serviceVar, 1), 0))); 
             cp.add( cp.or(cp.eq(cp.count(serviceVar, 4), 0), cp.eq(cp.count(serviceVar, 5), 0))); 
-            
+        
             // order the teamMembers to break symmetry
             for (i = 0; i < teamSize-1; i++) {
                 cp.add(cp.lt(teamMembers[i],teamMembers[i+1]));
             }
-            
-            int[] tuple = new int[teamSize];
+
+            // restrict the search to this partition
+            cp.add(cp.eq(teamMembers[0], firstMember));
+        
+            List<int[]> teams = new ArrayList<int[]>();
 
             cp.setParameter(IloCP.IntParam.LogVerbosity, 
                             IloCP.ParameterValues.Quiet);           
             cp.setParameter(IloCP.IntParam.SearchType, 
                             IloCP.ParameterValues.DepthFirst);      
+            cp.setParameter(IloCP.IntParam.Workers, 1);
             cp.startNewSearch();
             while (cp.next()) {     
+                int[] tuple = new int[teamSize];
                 for (i = 0; i < teamSize; i++)
                     tuple[i]= (int) cp.getValue(teamMembers[i]);
-                cp.addTuple(ts, tuple);
+                teams.add(tuple);
             }
-            return ts;
-        } catch (IloException e) {
-            System.out.println("Error: " + e);
-            e.printStackTrace();
+            return teams;
+        } finally {
+            cp.end();
         }
-        return null;
     }
 
     public static void main( String[] args ) {  
@@ -40,16 +40,114 @@ public class Truckfleet {
         return m;
     }
 
+    static final int nbTruckConfigs = 7; // Number of possible configurations for the truck 
+    static final int[] maxTruckConfigLoad = { // Capacity of the truck depends on its config 
+        11, 11, 11, 11, 10, 10, 10}; 
+    static final int[] truckCost = { // Cost for loading a truck of a given config
+        2, 2, 2, 3, 3, 3, 4}; 
+    static final int[][] configCost = { // Cost of going from one config to the next
+        {0, 0, 0, 10, 10, 10, 15},
+        {0, 0, 0, 10, 10, 10, 15},
+        {0, 0, 0, 10, 10, 10, 15},
+        {3, 3, 3,  0, 10, 10, 15},
+        {3, 3, 3, 10,  0, 10, 15},
+        {3, 3, 3, 10, 10,  0, 15},
+        {3, 3, 3, 10, 10, 10,  0}};
+    static final int[][] allowedContainerConfigs = { // Configurations accepting each color
+        {0, 3, 4, 6},
+        {1, 3, 5, 6},
+        {2, 4, 5, 6}};
+
+    static class Model {
+        IloIntVar[] truckConfigs;
+        IloIntVar[] where;
+        IloIntVar[] load;
+    }
+
+    // Orders j of volumes[j] and colors[j] for customers customerOfOrder[j], at most nbTrucks travels
+    public static Model buildModel(IloCP cp, int nbTrucks, int[] customerOfOrder, int[] volumes, int[] colors)
+        throws IloException {
+        int nbOrders = volumes.length;
+        int nbCustomers = max(customerOfOrder) + 1;
+        int maxLoad = max(maxTruckConfigLoad);
+        Model m = new Model();
+
+        // Decision variables
+        IloIntVar[] truckConfigs = m.truckConfigs = cp.intVarArray(nbTrucks, 0, nbTruckConfigs-1); // Configuration of the truck
+        IloIntVar[] where = m.where = cp.intVarArray(nbOrders, 0, nbTrucks - 1); // In which truck is an order
+        IloIntVar[] load = m.load = cp.intVarArray(nbTrucks, 0, maxLoad); // Load of a truck
+        IloIntVar numUsed = cp.intVar(0, nbTrucks); // Number of trucks used
+        IloIntVar[] customerOfTruck = cp.intVarArray(nbTrucks, 0, nbCustomers);
+
+        // Transition costs between trucks
+        IloIntTupleSet costTuples = TupleTables.of(cp, TupleTables.fromMatrix(configCost), 3);
+
+        IloIntVar[] transitionCost = cp.intVarArray(nbTrucks-1, 0, 1000);
+        for (int i = 1; i < nbTrucks; i++) {
+            IloIntVar[] auxVars = new IloIntVar[3];
+            auxVars[0]= truckConfigs[i-1];
+            auxVars[1]= truckConfigs[i];
+            auxVars[2]= transitionCost[i-1];
+            cp.add(cp.allowedAssignments(auxVars, costTuples));
+        }
+
+        // Constrain the volume of the orders in each truck 
+        cp.add(cp.pack(load, where, volumes, numUsed));
+        for (int i = 0; i < nbTrucks; i++) {
+            cp.add(cp.le(load[i], cp.element(maxTruckConfigLoad, truckConfigs[i])));
+        }
+
+        // Compatibility between the colors of an order and the configuration of its truck 
+        for (int j = 0; j < nbOrders; j++) {
+            IloIntVar configOfContainer = cp.intVar(allowedContainerConfigs[colors[j]]);
+            cp.add(cp.eq(configOfContainer, cp.element(truckConfigs, where[j])));
+        }
+
+        // Only one customer per truck 
+        for (int j = 0; j < nbOrders; j++) {
+            cp.add(cp.eq(cp.element(customerOfTruck, where[j]), customerOfOrder[j]));
+        }
+
+        // Non-used trucks are at the end
+        for (int j = 1; j < nbTrucks; j++) {
+            cp.add(cp.or(cp.gt(load[j-1], 0) , cp.eq(load[j], 0)));
+        }
+
+        // Dominance: the non used trucks keep the last used configuration
+        cp.add(cp.gt(load[0], 0));
+        for (int i = 1; i < nbTrucks; i++) {
+            cp.add(cp.or(cp.gt(load[i], 0), cp.eq(truckConfigs[i], truckConfigs[i-1])));
+        }
+
+        // Dominance:  regroup deliveries with same configuration
+        for (int i = nbTrucks-2; i >0; i--) {
+            IloConstraint ct = cp.trueConstraint();
+            for (int p = i+1; p < nbTrucks; p++) 
+                ct = cp.and(cp.neq(truckConfigs[p], truckConfigs[i-1]) , ct);
+            cp.add(cp.or(cp.eq(truckConfigs[i], truckConfigs[i-1]), ct));
+        }
+
+        // Objective: first criterion for minimizing the cost for configuring and loading trucks 
+        //            second criterion for minimizing the number of trucks
+
+        IloIntExpr obj1 = cp.constant(0);
+        for (int i = 0; i < nbTrucks; i++) {
+            obj1 = cp.sum(obj1, cp.prod(cp.element(truckCost, truckConfigs[i]), cp.neq(load[i], 0)));
+        }
+        obj1 = cp.sum(obj1, cp.sum(transitionCost));
+
+        IloIntExpr obj2 = numUsed;
+
+        // Multicriteria lexicographic optimization
+        cp.add(cp.minimize(cp.staticLex(obj1, obj2)));
+        return m;
+    }
+
     public static void main(String[] args) {
         try {
             IloCP cp = new IloCP();
-            int nbTruckConfigs = 7; // Number of possible configurations for the truck 
             int nbOrders       = 21;
-            int nbCustomers    = 3; 
             int nbTrucks       = 15; // Max. number of travels of the truck
-            int[]   maxTruckConfigLoad = { // Capacity of the truck depends on its config 
-                11, 11, 11, 11, 10, 10, 10}; 
-            int     maxLoad        = max(maxTruckConfigLoad) ; 
             int[]   customerOfOrder = {
                 0, 0, 0, 0, 0, 0, 0, 1, 1, 1,
                 1, 1, 1, 1, 1, 2, 2, 2, 2, 2, 
@@ -62,130 +160,12 @@ public class Truckfleet {
                 1, 2, 0, 1, 1, 1, 0, 0, 0, 0, 
                 2, 2, 2, 0, 2, 1, 0, 2, 0, 0, 
                 0};
-            int[]   truckCost = { // Cost for loading a truck of a given config
-                2, 2, 2, 3, 3, 3, 4}; 
-            
-            // Decision variables
-            IloIntVar[] truckConfigs = cp.intVarArray(nbTrucks, 0, nbTruckConfigs-1); // Configuration of the truck
-            IloIntVar[] where = cp.intVarArray(nbOrders, 0, nbTrucks - 1); // In which truck is an order
-            IloIntVar[] load = cp.intVarArray(nbTrucks, 0, maxLoad); // Load of a truck
-            IloIntVar numUsed = cp.intVar(0, nbTrucks); // Number of trucks used
-            IloIntVar[] customerOfTruck = cp.intVarArray(nbTrucks, 0, nbCustomers);
-            
-            // Transition costs between trucks
-            IloIntTupleSet costTuples = cp.intTable(3);  
-            cp.addTuple(costTuples, new int[] {0,0,0});
-            cp.addTuple(costTuples, new int[] {0,1,0});
-            cp.addTuple(costTuples, new int[] {0,2,0});
-            cp.addTuple(costTuples, new int[] {0,3,10});
-            cp.addTuple(costTuples, new int[] {0,4,10});
-            cp.addTuple(costTuples, new int[] {0,5,10});
-            cp.addTuple(costTuples, new int[] {0,6,15});
-            cp.addTuple(costTuples, new int[] {1,0,0});
-            cp.addTuple(costTuples, new int[] {1,1,0});
-            cp.addTuple(costTuples, new int[] {1,2,0});
-            cp.addTuple(costTuples, new int[] {1,3,10});
-            cp.addTuple(costTuples, new int[] {1,4,10});
-            cp.addTuple(costTuples, new int[] {1,5,10});
-            cp.addTuple(costTuples, new int[] {1,6,15});
-            cp.addTuple(costTuples, new int[] {2,0,0});
-            cp.addTuple(costTuples, new int[] {2,1,0});
-            cp.addTuple(costTuples, new int[] {2,2,0});
-            cp.addTuple(costTuples, new int[] {2,3,10});
-            cp.addTuple(costTuples, new int[] {2,4,10});
-            cp.addTuple(costTuples, new int[] {2,5,10});
-            cp.addTuple(costTuples, new int[] {2,6,15});
-            cp.addTuple(costTuples, new int[] {3,0,3});
-            cp.addTuple(costTuples, new int[] {3,1,3});
-            cp.addTuple(costTuples, new int[] {3,2,3});
-            cp.addTuple(costTuples, new int[] {3,3,0});
-            cp.addTuple(costTuples, new int[] {3,4,10});
-            cp.addTuple(costTuples, new int[] {3,5,10});
-            cp.addTuple(costTuples, new int[] {3,6,15});
-            cp.addTuple(costTuples, new int[] {4,0,3});
-            cp.addTuple(costTuples, new int[] {4,1,3});
-            cp.addTuple(costTuples, new int[] {4,2,3});
-            cp.addTuple(costTuples, new int[] {4,3,10});
-            cp.addTuple(costTuples, new int[] {4,4,0});
-            cp.addTuple(costTuples, new int[] {4,5,10});
-            cp.addTuple(costTuples, new int[] {4,6,15});
-            cp.addTuple(costTuples, new int[] {5,0,3});
-            cp.addTuple(costTuples, new int[] {5,1,3});
-            cp.addTuple(costTuples, new int[] {5,2,3});
-            cp.addTuple(costTuples, new int[] {5,3,10});
-            cp.addTuple(costTuples, new int[] {5,4,10});
-            cp.addTuple(costTuples, new int[] {5,5,0});
-            cp.addTuple(costTuples, new int[] {5,6,15});
-            cp.addTuple(costTuples, new int[] {6,0,3});
-            cp.addTuple(costTuples, new int[] {6,1,3});
-            cp.addTuple(costTuples, new int[] {6,2,3});
-            cp.addTuple(costTuples, new int[] {6,3,10});
-            cp.addTuple(costTuples, new int[] {6,4,10});
-            cp.addTuple(costTuples, new int[] {6,5,10});
-            cp.addTuple(costTuples, new int[] {6,6,0});
-            
-            IloIntVar[] transitionCost = cp.intVarArray(nbTrucks-1, 0, 1000);
-            for (int i = 1; i < nbTrucks; i++) {
-                IloIntVar[] auxVars = new IloIntVar[3];
-                auxVars[0]= truckConfigs[i-1];
-                auxVars[1]= truckConfigs[i];
-                auxVars[2]= transitionCost[i-1];
-                cp.add(cp.allowedAssignments(auxVars, costTuples));
-            }
-            
-            // Constrain the volume of the orders in each truck 
-            cp.add(cp.pack(load, where, volumes, numUsed));
-            for (int i = 0; i < nbTrucks; i++) {
-                cp.add(cp.le(load[i], cp.element(maxTruckConfigLoad, truckConfigs[i])));
-            }
-            
-            // Compatibility between the colors of an order and the configuration of its truck 
-            int[][] allowedContainerConfigs = new int[3][];
-            allowedContainerConfigs[0] = new int[] {0, 3, 4, 6};
-            allowedContainerConfigs[1] = new int[] {1, 3, 5, 6};
-            allowedContainerConfigs[2] = new int[] {2, 4, 5, 6};
-            for (int j = 0; j < nbOrders; j++) {
-                IloIntVar configOfContainer = cp.intVar(allowedContainerConfigs[colors[j]]);
-                cp.add(cp.eq(configOfContainer, cp.element(truckConfigs, where[j])));
-            }
-            
-            // Only one customer per truck 
-            for (int j = 0; j < nbOrders; j++) {
-                cp.add(cp.eq(cp.element(customerOfTruck, where[j]), customerOfOrder[j]));
-            }
-            
-            // Non-used trucks are at the end
-            for (int j = 1; j < nbTrucks; j++) {
-                cp.add(cp.or(cp.gt(load[j-1], 0) , cp.eq(load[j], 0)));
-            }
-            
-            // Dominance: the non used trucks keep the last used configuration
-            cp.add(cp.gt(load[0], 0));
-            for (int i = 1; i < nbTrucks; i++) {
-                cp.add(cp.or(cp.gt(load[i], 0), cp.eq(truckConfigs[i], truckConfigs[i-1])));
-            }
-            
-            // Dominance:  regroup deliveries with same configuration
-            for (int i = nbTrucks-2; i >0; i--) {
-                IloConstraint ct = cp.trueConstraint();
-                for (int p = i+1; p < nbTrucks; p++) 
-                    ct = cp.and(cp.neq(truckConfigs[p], truckConfigs[i-1]) , ct);
-                cp.add(cp.or(cp.eq(truckConfigs[i], truckConfigs[i-1]), ct));
-            }
-            
-            // Objective: first criterion for minimizing the cost for configuring and loading trucks 
-            //            second criterion for minimizing the number of trucks
-            
-            IloIntExpr obj1 = cp.constant(0);
-            for (int i = 0; i < nbTrucks; i++) {
-                obj1 = cp.sum(obj1, cp.prod(cp.element(truckCost, truckConfigs[i]), cp.neq(load[i], 0)));
-            }
-            obj1 = cp.sum(obj1, cp.sum(transitionCost));
-            
-            IloIntExpr obj2 = numUsed;
-            
-            // Multicriteria lexicographic optimization
-            cp.add(cp.minimize(cp.staticLex(obj1, obj2)));
+
+            Model model = buildModel(cp, nbTrucks, customerOfOrder, volumes, colors);
+            IloIntVar[] truckConfigs = model.truckConfigs;
+            IloIntVar[] where = model.where;
+            IloIntVar[] load = model.load;
+
             cp.setParameter(IloCP.DoubleParam.TimeLimit, 20); 
             cp.setParameter(IloCP.IntParam.LogPeriod, 50000); 
             cp.solve();
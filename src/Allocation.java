@@ -1,5 +1,7 @@
+import ilog.concert.IloException;
 import ilog.concert.IloIntExpr;
 import ilog.concert.IloIntVar;
+import ilog.concert.IloSolution;
 import ilog.cp.IloCP;
 
 public class Allocation {
@@ -36,38 +38,52 @@ public class Allocation {
             { 1,0,0,1,1,1,1,1,1,1,1,1,1,1,1,2,2,2,2,1,2,2,1,2,16 }
     };
 
+    static final FrequencyNetwork network = FrequencyNetwork.fromMatrix(nbChannel, dist, 16);
+
     public static int getTransmitterIndex(int cell, int channel){
-        int idx = 0;
-        int c = 0;
-        while (c<cell){
-            idx += nbChannel[c++];
+        return network.transmitter(cell,channel);
+    }
+
+    // One frequency variable per transmitter, with the co-cell separation between the
+    // channels of a cell and the dist separations between interfering cells only
+    public static IloIntVar[] buildModel(IloCP cp, FrequencyNetwork net, int nbAvailFreq) throws IloException {
+        IloIntVar[] freq = cp.intVarArray(net.getNbTransmitters(),0,nbAvailFreq-1,"Freq");
+        int coSeparation = net.getCoSeparation();
+        for(int cell1=0;cell1<net.getNbCell();cell1++){
+            int first1 = net.firstTransmitter(cell1);
+            int end1 = net.endTransmitter(cell1);
+            for(int t1=first1;t1<end1;t1++)
+                for(int t2=t1+1;t2<end1;t2++)
+                    cp.add(cp.ge(cp.abs(cp.diff(freq[t1],freq[t2])),coSeparation));
+            for(int arc=net.firstNeighbour(cell1);arc<net.endNeighbour(cell1);arc++){
+                int cell2 = net.neighbour(arc);
+                if (cell2 < cell1)
+                    continue;
+                int sep = net.separation(arc);
+                for(int t1=first1;t1<end1;t1++)
+                    for(int t2=net.firstTransmitter(cell2);t2<net.endTransmitter(cell2);t2++)
+                        cp.add(cp.ge(cp.abs(cp.diff(freq[t1],freq[t2])),sep));
+            }
         }
-        return (idx+channel);
+        return freq;
+    }
+
+    // Greedy frequencies as a starting point, or null when the greedy gets stuck
+    public static IloSolution warmStart(IloCP cp, FrequencyNetwork net, IloIntVar[] freq, int nbAvailFreq) throws IloException {
+        int[] greedy = FrequencyGreedy.dsatur(net, nbAvailFreq);
+        if (greedy == null)
+            return null;
+        IloSolution sol = cp.solution();
+        for(int t=0;t<freq.length;t++)
+            sol.setValue(freq[t],greedy[t]);
+        return sol;
     }
 
     public static void main(String[] args){
         try {
             IloCP cp = new IloCP();
-            int nbTransmitters = getTransmitterIndex(nbCell,0);
-            IloIntVar[] freq = cp.intVarArray(nbTransmitters,0,nbAvailFreq-1,"Freq");
-
-            for(int cell=0;cell<nbCell;cell++){
-                for(int channel_1 = 0; channel_1< nbChannel[cell]; channel_1++){
-                    for(int channel_2 = channel_1+1;channel_2<nbChannel[cell];channel_2++){
-                        cp.add(cp.ge(cp.abs(cp.diff(freq[getTransmitterIndex(cell,channel_1)],freq[getTransmitterIndex(cell,channel_2)])),16));
-                    }
-                }
-            }
-
-            for (int cell1 = 0; cell1 < nbCell; cell1++){
-                for (int cell2 = cell1+1; cell2 < nbCell; cell2++)
-                    if (dist[cell1][cell2] > 0)
-                        for (int channel1 = 0; channel1 < nbChannel[cell1]; channel1++)
-                            for (int channel2 = 0; channel2 < nbChannel[cell2]; channel2++)
-                                cp.add(cp.ge(cp.abs(cp.diff(freq[getTransmitterIndex(cell1, channel1)],
-                                        freq[getTransmitterIndex(cell2, channel2)])),
-                                        dist[cell1][cell2]));
-            }
+            int nbTransmitters = network.getNbTransmitters();
+            IloIntVar[] freq = buildModel(cp, network, nbAvailFreq);
 
             IloIntExpr nbFreq = cp.countDifferent(freq);
             cp.add(cp.minimize(nbFreq));
@@ -76,17 +92,37 @@ public class Allocation {
             cp.setParameter(IloCP.IntParam.FailLimit,400000);
             cp.setParameter(IloCP.IntParam.LogPeriod,100000);
 
+            if (args.length == 0 || !args[0].equals("-nowarm")) {
+                IloSolution start = warmStart(cp, network, freq, nbAvailFreq);
+                if (start != null)
+                    cp.setStartingPoint(start);
+            }
+
 
 
             if (cp.solve()) {
+                int[] freqVal = SolutionWriter.values(cp, freq);
+                int[][] cellFreq = new int[nbCell][];
+                StringBuilder sb = new StringBuilder();
                 for (int cell = 0; cell < nbCell; cell++) {
-                    for (int channel = 0; channel < nbChannel[cell]; channel++)
-                        System.out.print((int)cp.getValue(freq[getTransmitterIndex(cell, channel)])
-                                + "  " );
-                    System.out.println();
+                    cellFreq[cell] = new int[nbChannel[cell]];
+                    for (int channel = 0; channel < nbChannel[cell]; channel++) {
+                        cellFreq[cell][channel] = freqVal[getTransmitterIndex(cell, channel)];
+                        sb.append(cellFreq[cell][channel]).append("  ");
+                    }
+                    sb.append('\n');
+                }
+                int nbFreqValue = (int)cp.getValue(nbFreq);
+                sb.append("Total # of sites       ").append(nbTransmitters).append('\n');
+                sb.append("Total # of frequencies ").append(nbFreqValue).append('\n');
+                System.out.print(sb);
+
+                SolutionWriter out = SolutionWriter.fromProperty();
+                if (out != null) {
+                    out.write("nbFrequencies", nbFreqValue);
+                    out.write("freq", cellFreq);
+                    out.close();
                 }
-                System.out.println("Total # of sites       " + nbTransmitters);
-                System.out.println("Total # of frequencies " + (int)cp.getValue(nbFreq));
 
             } else
                 System.out.println("No solution");
@@ -0,0 +1,184 @@
+import ilog.cp.IloCP;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer single-consumer ring buffer of bound events.
+ *
+ * The solver callback appends (time, reason, LB, UB, gap) with
+ * {@link #record}, which writes into preallocated primitive arrays and
+ * publishes the new head with a lazySet: no allocation, no lock. When the
+ * consumer falls behind by a full buffer, events are dropped and counted
+ * rather than blocking the search. Another thread drains the buffer with
+ * {@link #drain} into a {@link Sink}, for example a {@link TimeSeries} or a
+ * {@link TsvSink}.
+ */
+public class BoundsRecorder {
+
+    public interface Sink {
+        void accept(long nanos, int reason, double lb, double ub, double gap);
+    }
+
+    private final int mask;
+    private final long[] time;
+    private final int[] reason;
+    private final double[] lb;
+    private final double[] ub;
+    private final double[] gap;
+    // Next slot to write, owned by the producer
+    private final AtomicLong head = new AtomicLong();
+    // Next slot to read, owned by the consumer
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // capacity is rounded up to a power of two
+    public BoundsRecorder(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        mask = size - 1;
+        time = new long[size];
+        reason = new int[size];
+        lb = new double[size];
+        ub = new double[size];
+        gap = new double[size];
+    }
+
+    public int getCapacity() { return mask + 1; }
+    public long getDropped() { return dropped.get(); }
+
+    // Producer side, called from the solver callback only
+    public boolean record(long nanos, IloCP.Callback.Reason why, double lower, double upper, double relGap) {
+        long h = head.get();
+        if (h - tail.get() > mask) {
+            dropped.lazySet(dropped.get() + 1);
+            return false;
+        }
+        int slot = (int) h & mask;
+        time[slot] = nanos;
+        reason[slot] = why.ordinal();
+        lb[slot] = lower;
+        ub[slot] = upper;
+        gap[slot] = relGap;
+        head.lazySet(h + 1);
+        return true;
+    }
+
+    // Consumer side: hands every pending event to sink and returns their number
+    public int drain(Sink sink) {
+        long t = tail.get();
+        long h = head.get();
+        for (long i = t; i < h; i++) {
+            int slot = (int) i & mask;
+            sink.accept(time[slot], reason[slot], lb[slot], ub[slot], gap[slot]);
+        }
+        tail.lazySet(h);
+        return (int) (h - t);
+    }
+
+    // Drains every period on a daemon thread until it is interrupted, then drains once more
+    public Thread startDrainer(final Sink sink, final long periodMillis) {
+        Thread t = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        drain(sink);
+                        Thread.sleep(periodMillis);
+                    }
+                } catch (InterruptedException e) {
+                    // Stopped by the owner
+                }
+                drain(sink);
+            }
+        }, "bounds-drainer");
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    static String reasonName(int reason) {
+        IloCP.Callback.Reason[] values = IloCP.Callback.Reason.values();
+        return reason >= 0 && reason < values.length ? values[reason].name() : Integer.toString(reason);
+    }
+
+    // In-memory time series with a few queries on the bounds history
+    public static class TimeSeries implements Sink {
+        private int size;
+        private long[] time = new long[64];
+        private int[] reason = new int[64];
+        private double[] lb = new double[64];
+        private double[] ub = new double[64];
+        private double[] gap = new double[64];
+
+        public void accept(long nanos, int why, double lower, double upper, double relGap) {
+            if (size == time.length) {
+                time = Arrays.copyOf(time, 2 * size);
+                reason = Arrays.copyOf(reason, 2 * size);
+                lb = Arrays.copyOf(lb, 2 * size);
+                ub = Arrays.copyOf(ub, 2 * size);
+                gap = Arrays.copyOf(gap, 2 * size);
+            }
+            time[size] = nanos;
+            reason[size] = why;
+            lb[size] = lower;
+            ub[size] = upper;
+            gap[size++] = relGap;
+        }
+
+        public int size() { return size; }
+        public double getTime(int k) { return time[k] / 1e9; }
+        public int getReason(int k) { return reason[k]; }
+        public double getLB(int k) { return lb[k]; }
+        public double getUB(int k) { return ub[k]; }
+        public double getGap(int k) { return gap[k]; }
+
+        // Index of the last event at or before the given time in seconds, -1 if none
+        public int indexAt(double seconds) {
+            long nanos = (long) (seconds * 1e9);
+            int lo = 0, hi = size - 1, found = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (time[mid] <= nanos) {
+                    found = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        public double gapAt(double seconds) {
+            int k = indexAt(seconds);
+            return k < 0 ? Double.POSITIVE_INFINITY : gap[k];
+        }
+
+        // First time in seconds the gap was at most target, NaN if never
+        public double timeToGap(double target) {
+            for (int k = 0; k < size; k++)
+                if (gap[k] <= target)
+                    return time[k] / 1e9;
+            return Double.NaN;
+        }
+    }
+
+    // Tab-separated time series, one line per event
+    public static class TsvSink implements Sink {
+        private final PrintWriter out;
+
+        public TsvSink(Writer writer) {
+            out = new PrintWriter(writer);
+            out.println("time\treason\tlb\tub\tgap");
+        }
+
+        public void accept(long nanos, int reason, double lb, double ub, double gap) {
+            out.format("%.6f\t%s\t%s\t%s\t%s%n", nanos / 1e9, reasonName(reason), lb, ub, gap);
+        }
+
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -1,31 +1,38 @@
+import ilog.concert.IloException;
 import ilog.concert.IloIntVar;
 import ilog.cp.IloCP;
 
 public class CPOFileFormat {
 
     public static String[] colors = {"blue","white","yellow","green"};
-    public static void createModel(String filename){
-        try {
-            IloCP cp = new IloCP();
 
-            IloIntVar x1 = cp.intVar(0,3,"Belgium");
-            IloIntVar x2 = cp.intVar(0,3,"Denmark");
-            IloIntVar x3 = cp.intVar(0,3,"France");
-            IloIntVar x4 = cp.intVar(0,3,"Germany");
-            IloIntVar x5 = cp.intVar(0,3,"Luxembourg");
-            IloIntVar x6 = cp.intVar(0,3,"Netherlands");
+    // Bump when buildModel changes so that cached dumps of the old model are not reused
+    static final int MODEL_VERSION = 1;
 
-            cp.add(cp.neq(x1,x3));
-            cp.add(cp.neq(x1,x4));
-            cp.add(cp.neq(x1,x5));
-            cp.add(cp.neq(x1,x6));
-            cp.add(cp.neq(x2,x4));
-            cp.add(cp.neq(x3,x4));
-            cp.add(cp.neq(x3,x5));
-            cp.add(cp.neq(x4,x5));
-            cp.add(cp.neq(x4,x6));
+    public static void buildModel(IloCP cp) throws IloException {
+        IloIntVar x1 = cp.intVar(0,3,"Belgium");
+        IloIntVar x2 = cp.intVar(0,3,"Denmark");
+        IloIntVar x3 = cp.intVar(0,3,"France");
+        IloIntVar x4 = cp.intVar(0,3,"Germany");
+        IloIntVar x5 = cp.intVar(0,3,"Luxembourg");
+        IloIntVar x6 = cp.intVar(0,3,"Netherlands");
 
-            cp.dumpModel(filename);
+        cp.add(cp.neq(x1,x3));
+        cp.add(cp.neq(x1,x4));
+        cp.add(cp.neq(x1,x5));
+        cp.add(cp.neq(x1,x6));
+        cp.add(cp.neq(x2,x4));
+        cp.add(cp.neq(x3,x4));
+        cp.add(cp.neq(x3,x5));
+        cp.add(cp.neq(x4,x5));
+        cp.add(cp.neq(x4,x6));
+    }
+
+    public static void createModel(String filename){
+        try {
+            IloCP cp = new IloCP();
+            buildModel(cp);
+            CompressedCPO.dumpModel(cp, filename);
 
 
         } catch (Exception e) {
@@ -36,15 +43,36 @@ public class CPOFileFormat {
     public static void solveModel(String filename){
         try {
             IloCP cp = new IloCP();
-            cp.importModel(filename);
-            cp.getIloIntVar("x3").setUB(0);
-            if (cp.solve()){
-                System.out.println("Solution:");
-                IloIntVar[] vars = cp.getAllIloIntVars();
-                for(int i=0; i<vars.length;i++){
-                    System.out.println(vars[i]);
-                }
+            CompressedCPO.importModel(cp, filename);
+            solveImported(cp);
+        } catch (Exception e){
+            System.err.println("Error"+e);
+        }
+    }
+
+    static void solveImported(IloCP cp) throws IloException {
+        cp.getIloIntVar("x3").setUB(0);
+        if (cp.solve()){
+            System.out.println("Solution:");
+            IloIntVar[] vars = cp.getAllIloIntVars();
+            for(int i=0; i<vars.length;i++){
+                System.out.println(vars[i]);
             }
+        }
+    }
+
+    // Builds the model only if the cache has no dump for the current MODEL_VERSION
+    public static void solveCached(ModelCache cache){
+        try {
+            IloCP cp = new IloCP();
+            String key = new ModelCache.Key("CPOFileFormat", MODEL_VERSION).hex();
+            cache.load(cp, key, new ModelCache.Builder() {
+                public void build(IloCP cp) throws IloException {
+                    buildModel(cp);
+                }
+            });
+            solveImported(cp);
+            cp.end();
         } catch (Exception e){
             System.err.println("Error"+e);
         }
@@ -52,6 +80,16 @@ public class CPOFileFormat {
 
 
     public static void main(String[] args){
+        if (args.length > 1 && args[0].equals("-cache")) {
+            try {
+                ModelCache cache = new ModelCache(args[1], 256L << 20);
+                solveCached(cache);
+                System.out.println(cache.report());
+            } catch (java.io.IOException e) {
+                System.err.println("Error"+e);
+            }
+            return;
+        }
         String filename = (args.length > 0 ? args[0]: "CPOFileFormat.cpo");
         createModel(filename);
         solveModel(filename);
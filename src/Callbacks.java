@@ -1,13 +1,22 @@
 import ilog.concert.IloException;
 import ilog.cp.IloCP;
 
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+
 public class Callbacks {
     static public class BoundsCallback implements IloCP.Callback {
         private double _lb;
         private double _ub;
         private double _gap;
-        public BoundsCallback() { init();}
+        private final BoundsRecorder _recorder;
+        private long _start;
+        public BoundsCallback() { this(null);}
+        // With a recorder, bound events are appended to it instead of printed
+        public BoundsCallback(BoundsRecorder recorder) { _recorder = recorder; init();}
         public void init(){
+            _start = System.nanoTime();
             _lb = Double.NEGATIVE_INFINITY;
             _ub = Double.POSITIVE_INFINITY;
             _gap = Double.POSITIVE_INFINITY;
@@ -15,19 +24,21 @@ public class Callbacks {
 
         public void invoke(IloCP cp, IloCP.Callback.Reason reason){
             try {
-                System.out.println("Using callbacks now!!!!");
                 if (reason == IloCP.Callback.Reason.StartSolve){
                     init();
+                    if (_recorder != null)
+                        return;
                     System.out.println("Time\tLB\tUB\tGAP");
                     System.out.println("==============================");
                 }else if (reason == IloCP.Callback.Reason.EndSolve){
-                    System.out.println("End Callback");
+                    if (_recorder == null)
+                        System.out.println("End Callback");
                 }
                 else{
                     boolean soln = (reason == IloCP.Callback.Reason.Solution);
                     boolean bnd = (reason == IloCP.Callback.Reason.ObjBound);
                     if (soln || bnd){
-                        if (_lb > Double.NEGATIVE_INFINITY && _ub <Double.POSITIVE_INFINITY)
+                        if (_recorder == null && _lb > Double.NEGATIVE_INFINITY && _ub <Double.POSITIVE_INFINITY)
                             System.out.println();
                         if (soln) {
                             _ub = cp.getObjValue();
@@ -41,7 +52,11 @@ public class Callbacks {
                                 _gap = cp.getObjGap();
                         }
                     }
-                    if (_lb > Double.NEGATIVE_INFINITY && _ub < Double.POSITIVE_INFINITY){
+                    if (_recorder != null){
+                        if (soln || bnd)
+                            _recorder.record(System.nanoTime() - _start, reason, _lb, _ub, _gap);
+                    }
+                    else if (_lb > Double.NEGATIVE_INFINITY && _ub < Double.POSITIVE_INFINITY){
                         System.out.format("\r                                                  \r%.1f\t%.0f\t%.0f\t%.1f%%",
                                 cp.getInfo(IloCP.DoubleInfo.SolveTime), _lb, _ub, 100 * _gap);
                         System.out.flush();
@@ -55,19 +70,46 @@ public class Callbacks {
     };
 
     static void SolveWithCallBack(IloCP cp) throws IloException{
-        BoundsCallback cb = new Callbacks.BoundsCallback();
+        IloCP.Callback cb = SolverEvents.timed("BoundsCallback", new Callbacks.BoundsCallback());
         cp.addCallback(cb);
-        cp.solve();
+        SolverEvents.solve(cp, "callbacks");
         cp.removeCallback(cb);
     }
 
+    // Records the bounds from the solver thread and writes them as TSV from a drainer thread
+    static void SolveWithRecorder(IloCP cp, String tsvFile) throws IloException, IOException {
+        BoundsRecorder recorder = new BoundsRecorder(1 << 16);
+        BoundsRecorder.TsvSink sink = new BoundsRecorder.TsvSink(new BufferedWriter(new FileWriter(tsvFile)));
+        BoundsCallback cb = new Callbacks.BoundsCallback(recorder);
+        Thread drainer = recorder.startDrainer(sink, 100);
+        cp.addCallback(cb);
+        try {
+            cp.solve();
+        } finally {
+            cp.removeCallback(cb);
+            drainer.interrupt();
+            try {
+                drainer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sink.close();
+        }
+        if (recorder.getDropped() > 0)
+            System.out.println("Dropped " + recorder.getDropped() + " bound events");
+    }
+
     public static void main(String[] args){
         try{
             IloCP cp = new IloCP();
-            cp.importModel("data/linebal-BARTHOL2-142-30.cpo");
-            SolveWithCallBack(cp);
+            String filename = (args.length > 0 ? args[0] : "data/linebal-BARTHOL2-142-30.cpo");
+            CompressedCPO.importModel(cp, filename);
+            if (args.length > 1)
+                SolveWithRecorder(cp, args[1]);
+            else
+                SolveWithCallBack(cp);
             cp.end();
-        }catch(IloException e){
+        }catch(IloException | IOException e){
             System.out.println("Error:");
             e.printStackTrace();
         }
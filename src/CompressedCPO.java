@@ -0,0 +1,65 @@
+import ilog.concert.IloException;
+import ilog.cp.IloCP;
+
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Dump and import of CPO models that are gzip compressed on disk.
+ *
+ * Files whose name ends with ".gz" go through gzip streams wrapped around
+ * IloCP.dumpModel(OutputStream) and IloCP.importModel(InputStream), so the
+ * text is compressed or decompressed block by block as the engine writes or
+ * reads it and is never held uncompressed in memory or on disk. Other names
+ * are passed to the engine unchanged.
+ */
+public class CompressedCPO {
+
+    static final int BUFFER = 1 << 16;
+
+    public static boolean isCompressed(String filename) {
+        return filename.endsWith(".gz");
+    }
+
+    public static void dumpModel(IloCP cp, String filename) throws IloException, IOException {
+        if (!isCompressed(filename)) {
+            cp.dumpModel(filename);
+            return;
+        }
+        OutputStream out = new GZIPOutputStream(new FileOutputStream(filename), BUFFER);
+        try {
+            cp.dumpModel(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    public static void importModel(IloCP cp, String filename) throws IloException, IOException {
+        if (!isCompressed(filename)) {
+            cp.importModel(filename);
+            return;
+        }
+        InputStream in = new GZIPInputStream(new FileInputStream(filename), BUFFER);
+        try {
+            cp.importModel(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    // Streams an existing .cpo file into a .cpo.gz file
+    public static void compress(String from, String to) throws IOException {
+        InputStream in = new FileInputStream(from);
+        OutputStream out = new GZIPOutputStream(new FileOutputStream(to), BUFFER);
+        try {
+            byte[] buf = new byte[BUFFER];
+            int n;
+            while ((n = in.read(buf)) > 0)
+                out.write(buf, 0, n);
+        } finally {
+            in.close();
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads the whitespace separated integers of an instance file.
+ *
+ * The file is memory-mapped and the ASCII digits are parsed straight from the
+ * mapped buffer, so no token objects are created and values never go through a
+ * double. Files larger than one mapping window are remapped window by window.
+ * A reader can also be built over integers that are already parsed, such as
+ * the ones loaded from an {@link InstanceCache} sidecar, or over a slice of
+ * an {@link InstanceArchive}.
+ */
+public class DataReader {
+
+    static final int WINDOW = 1 << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private long windowStart;
+    private ByteBuffer buf;
+    private IntBuffer ints;
+
+    public DataReader(String filename) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        channel = file.getChannel();
+        size = channel.size();
+        windowStart = 0;
+        buf = map(0);
+        if (size <= WINDOW) {
+            file.close();
+        }
+    }
+
+    public DataReader(ByteBuffer buffer) {
+        channel = null;
+        size = buffer.remaining();
+        windowStart = 0;
+        buf = buffer.slice();
+    }
+
+    public DataReader(IntBuffer values) {
+        channel = null;
+        size = 0;
+        windowStart = 0;
+        ints = values.slice();
+    }
+
+    // Reader for a file, or for an archived instance named "archive.iar#name"
+    public static DataReader open(String name) throws IOException {
+        int sep = name.lastIndexOf('#');
+        if (sep > 0 && name.substring(0, sep).endsWith(InstanceArchive.EXTENSION))
+            return InstanceArchive.get(name.substring(0, sep)).reader(name.substring(sep + 1));
+        return new DataReader(name);
+    }
+
+    private MappedByteBuffer map(long start) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, size - start));
+    }
+
+    private int read() throws IOException {
+        if (!buf.hasRemaining()) {
+            long next = windowStart + buf.limit();
+            if (channel == null || next >= size)
+                return -1;
+            windowStart = next;
+            buf = map(next);
+            if (next + buf.limit() >= size)
+                channel.close();
+        }
+        return buf.get() & 0xff;
+    }
+
+    private void unread() {
+        buf.position(buf.position() - 1);
+    }
+
+    public boolean hasNext() throws IOException {
+        if (ints != null)
+            return ints.hasRemaining();
+        int c = read();
+        while (c != -1 && c != '-' && (c < '0' || c > '9'))
+            c = read();
+        if (c == -1)
+            return false;
+        unread();
+        return true;
+    }
+
+    public int next() throws IOException {
+        if (ints != null) {
+            if (!ints.hasRemaining())
+                throw new EOFException("No more integers in instance data");
+            return ints.get();
+        }
+        int c = read();
+        while (c != '-' && (c < '0' || c > '9')) {
+            if (c == -1)
+                throw new EOFException("No more integers in instance data");
+            c = read();
+        }
+        boolean negative = (c == '-');
+        if (negative)
+            c = read();
+        int value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            c = read();
+        }
+        // Drop a fractional part the same way (int) st.nval truncates it
+        if (c == '.') {
+            c = read();
+            while (c >= '0' && c <= '9')
+                c = read();
+        }
+        if (c != -1)
+            unread();
+        return negative ? -value : value;
+    }
+}
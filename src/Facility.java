@@ -5,29 +5,69 @@ import ilog.concert.IloObjective;
 import ilog.cp.IloCP;
 
 import javax.xml.crypto.Data;
-import java.io.BufferedReader;
-import java.io.FileInputStream;
-import java.io.Reader;
-import java.io.StreamTokenizer;
 import java.io.*;
 
 public class Facility {
 
     public static String[] Colors = {"blue","white","yellow","green"};
 
-    public static class DataReader{
-        private StreamTokenizer st;
+    // Every store is served by one open location, within the capacity of the location
+    static class Instance {
+        final int nbLocations, nbStores;
+        final int[] capacity;
+        final int[] fixedCost;
+        final int[][] cost;
+
+        Instance(DataReader data) throws IOException {
+            nbLocations = data.next();
+            nbStores = data.next();
+            capacity = new int[nbLocations];
+            fixedCost = new int[nbLocations];
+            cost = new int[nbStores][nbLocations];
+            for(int j=0;j<nbLocations;j++){
+                capacity[j] = data.next();
+            }
+            for(int j=0;j<nbLocations;j++){
+                fixedCost[j] = data.next();
+            }
+            for(int i=0;i<nbStores;i++){
+                for(int j=0;j<nbLocations;j++){
+                    cost[i][j] = data.next();
+                }
+            }
+        }
+    }
+
+    static class Model {
+        IloIntVar[] supplier;
+        IloIntVar[] open;
+        IloIntExpr obj;
+    }
 
-        public DataReader(String filename) throws IOException{
-            FileInputStream fstream = new FileInputStream(filename);
-            Reader r = new BufferedReader(new InputStreamReader(fstream));
-            st = new StreamTokenizer(r);
+    static Model buildModel(IloCP cp, Instance inst) throws IloException {
+        int p,q;
+        int nbLocations = inst.nbLocations;
+        int nbStores = inst.nbStores;
+        Model m = new Model();
+        IloIntVar[] supplier = m.supplier = cp.intVarArray(nbStores,0,nbLocations-1);
+        IloIntVar[] open = m.open = cp.intVarArray(nbLocations,0,1);
+
+        for(p=0;p<nbStores;p++){
+            cp.add(cp.eq(cp.element(open,supplier[p]),1));
+        }
+        for(q=0;q<nbLocations;q++){
+            cp.add(cp.le(cp.count(supplier,q),inst.capacity[q]));
         }
 
-        public int next() throws IOException{
-            st.nextToken();
-            return (int) st.nval;
+        SumBuilder objTerms = new SumBuilder(cp, nbLocations + nbStores);
+        objTerms.add(inst.fixedCost, open);
+        for(p=0;p<nbStores;p++){
+            objTerms.add(cp.element(inst.cost[p],supplier[p]));
         }
+        m.obj = objTerms.toExpr();
+
+        cp.add(cp.minimize(m.obj));
+        return m;
     }
 
     public static void main(String[] args) throws IOException{
@@ -40,61 +80,45 @@ public class Facility {
             IloCP cp = new IloCP();
             int p,q;
 
-            DataReader data = new DataReader(filename);
+            Instance inst = new Instance(new DataReader(filename));
+            int nbLocations = inst.nbLocations;
+            int nbStores = inst.nbStores;
 
-            int nbLocations = data.next();
-            int nbStores = data.next();
-            int[] capacity = new int[nbLocations];
-            int[] fixedCost = new int[nbLocations];
-            int[][] cost = new int[nbStores][];
+            SolverEvents.ModelBuild build = SolverEvents.beginBuild(filename);
+            Model model = buildModel(cp, inst);
+            SolverEvents.endBuild(build, (long) nbStores * nbLocations);
 
-            for(int i=0;i<nbStores;i++){
-                cost[i] = new int[nbLocations];
-            }
-            for(int j=0;j<nbLocations;j++){
-                capacity[j] = data.next();
-            }
-            for(int j=0;j<nbLocations;j++){
-                fixedCost[j] = data.next();
-            }
-            for(int i=0;i<nbStores;i++){
-                for(int j=0;j<nbLocations;j++){
-                    cost[i][j] = data.next();
-                }
-            }
+            SolverEvents.solve(cp, filename);
 
-            IloIntVar[] supplier = cp.intVarArray(nbStores,0,nbLocations-1);
-            IloIntVar[] open = cp.intVarArray(nbLocations,0,1);
+            SolverEvents.SolutionRead read = SolverEvents.beginRead(filename);
+            int objValue = (int) cp.getValue(model.obj);
+            int[] openVal = SolutionWriter.values(cp, model.open);
+            int[] supplierVal = SolutionWriter.values(cp, model.supplier);
+            SolverEvents.endRead(read, 1 + nbLocations + nbStores);
 
-            for(p=0;p<nbStores;p++){
-                cp.add(cp.eq(cp.element(open,supplier[p]),1));
-            }
-            for(q=0;q<nbLocations;q++){
-                cp.add(cp.le(cp.count(supplier,q),capacity[q]));
-            }
-
-            IloIntExpr obj = cp.scalProd(open,fixedCost);
-            for(p=0;p<nbStores;p++){
-                obj = cp.sum(obj,cp.element(cost[p],supplier[p]));
-            }
-
-            cp.add(cp.minimize(obj));
-
-            cp.solve();
-
-            System.out.println();
-            System.out.println("Optimal value: " + (int) cp.getValue(obj));
+            StringBuilder sb = new StringBuilder();
+            sb.append('\n');
+            sb.append("Optimal value: ").append(objValue).append('\n');
             for (q = 0; q < nbLocations; q++) {
-                if (cp.getValue(open[q]) == 1) {
-                    System.out.print("Facility " + q
-                            + " is open, it serves stores ");
+                if (openVal[q] == 1) {
+                    sb.append("Facility ").append(q)
+                            .append(" is open, it serves stores ");
                     for (p = 0; p < nbStores; p++) {
-                        if (cp.getValue(supplier[p]) == q)
-                            System.out.print(p + " ");
+                        if (supplierVal[p] == q)
+                            sb.append(p).append(' ');
                     }
-                    System.out.println();
+                    sb.append('\n');
                 }
             }
+            System.out.print(sb);
+
+            SolutionWriter out = SolutionWriter.fromProperty();
+            if (out != null) {
+                out.write("objective", objValue);
+                out.write("open", openVal);
+                out.write("supplier", supplierVal);
+                out.close();
+            }
 
         } catch (IloException e) {
             e.printStackTrace();
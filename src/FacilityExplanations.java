@@ -5,31 +5,12 @@ import ilog.concert.IloObjective;
 import ilog.cp.IloCP;
 
 import javax.xml.crypto.Data;
-import java.io.BufferedReader;
-import java.io.FileInputStream;
-import java.io.Reader;
-import java.io.StreamTokenizer;
 import java.io.*;
 
 public class FacilityExplanations {
 
     public static String[] Colors = {"blue","white","yellow","green"};
 
-    public static class DataReader{
-        private StreamTokenizer st;
-
-        public DataReader(String filename) throws IOException{
-            FileInputStream fstream = new FileInputStream(filename);
-            Reader r = new BufferedReader(new InputStreamReader(fstream));
-            st = new StreamTokenizer(r);
-        }
-
-        public int next() throws IOException{
-            st.nextToken();
-            return (int) st.nval;
-        }
-    }
-
     public static void main(String[] args) throws IOException{
         String filename;
         if (args.length >0)
@@ -73,10 +54,12 @@ public class FacilityExplanations {
                 cp.add(cp.le(cp.count(supplier,q),capacity[q]));
             }
 
-            IloIntExpr obj = cp.scalProd(open,fixedCost);
+            SumBuilder objTerms = new SumBuilder(cp, nbLocations + nbStores);
+            objTerms.add(fixedCost, open);
             for(p=0;p<nbStores;p++){
-                obj = cp.sum(obj,cp.element(cost[p],supplier[p]));
+                objTerms.add(cp.element(cost[p],supplier[p]));
             }
+            IloIntExpr obj = objTerms.toExpr();
 
             cp.add(cp.minimize(obj));
 
@@ -0,0 +1,182 @@
+import java.util.Arrays;
+
+/**
+ * DSatur-style greedy frequency assignment for a {@link FrequencyNetwork}.
+ *
+ * Transmitters are coloured one at a time. The next one is the unassigned
+ * transmitter whose assigned neighbours use the most distinct frequencies,
+ * with ties broken by degree. It receives the lowest frequency already in
+ * use that keeps every separation, or else the lowest free frequency. The
+ * separations are the ones of the Allocation model: coSeparation inside a
+ * cell and the network separation between interfering cells.
+ *
+ * Only primitive arrays are used. The selection heap holds (saturation,
+ * degree, transmitter) packed into a long and is updated lazily: 21 bits of
+ * saturation, 22 bits of degree (larger degrees tie) and 20 bits of
+ * transmitter, so networks over MAX_TRANSMITTERS transmitters or
+ * MAX_FREQUENCIES frequencies are rejected.
+ */
+public class FrequencyGreedy {
+
+    static final int T_BITS = 20;
+    public static final int MAX_TRANSMITTERS = 1 << T_BITS;
+    public static final int MAX_FREQUENCIES = (1 << 21) - 1;
+    static final int MAX_DEGREE = (1 << 22) - 1;
+
+    // Frequency of every transmitter, or null when some transmitter cannot be placed
+    public static int[] dsatur(FrequencyNetwork net, int nbAvailFreq) {
+        int nbT = net.getNbTransmitters();
+        if (nbT > MAX_TRANSMITTERS)
+            throw new IllegalArgumentException(nbT + " transmitters, at most " + MAX_TRANSMITTERS + " supported");
+        if (nbAvailFreq < 0 || nbAvailFreq > MAX_FREQUENCIES)
+            throw new IllegalArgumentException(nbAvailFreq + " frequencies, at most " + MAX_FREQUENCIES + " supported");
+        int words = (nbAvailFreq + 63) >>> 6;
+        if ((long) nbT * words > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Saturation bitsets of " + nbT + " x " + nbAvailFreq + " too large");
+        int[] cellOf = new int[nbT];
+        int[] degree = new int[nbT];
+        for (int c = 0; c < net.getNbCell(); c++) {
+            long deg = net.nbChannel(c) - 1;
+            for (int arc = net.firstNeighbour(c); arc < net.endNeighbour(c); arc++)
+                deg += net.nbChannel(net.neighbour(arc));
+            for (int t = net.firstTransmitter(c); t < net.endTransmitter(c); t++) {
+                cellOf[t] = c;
+                degree[t] = (int) Math.min(deg, MAX_DEGREE);
+            }
+        }
+
+        int[] freq = new int[nbT];
+        Arrays.fill(freq, -1);
+        // Distinct frequencies seen among the assigned neighbours, one bit set per transmitter
+        long[] seen = new long[nbT * words];
+        int[] saturation = new int[nbT];
+        boolean[] used = new boolean[nbAvailFreq];
+        long[] forbidden = new long[words];
+
+        LongHeap heap = new LongHeap(2 * nbT);
+        for (int t = 0; t < nbT; t++)
+            heap.push(key(0, degree[t], t));
+
+        while (!heap.isEmpty()) {
+            long k = heap.pop();
+            int t = (int) (k & (MAX_TRANSMITTERS - 1));
+            if (freq[t] >= 0 || (int) (k >>> 42) != saturation[t])
+                continue; // stale entry
+
+            int c = cellOf[t];
+            Arrays.fill(forbidden, 0L);
+            for (int u = net.firstTransmitter(c); u < net.endTransmitter(c); u++)
+                if (freq[u] >= 0)
+                    forbid(forbidden, freq[u], net.getCoSeparation(), nbAvailFreq);
+            for (int arc = net.firstNeighbour(c); arc < net.endNeighbour(c); arc++) {
+                int c2 = net.neighbour(arc);
+                for (int u = net.firstTransmitter(c2); u < net.endTransmitter(c2); u++)
+                    if (freq[u] >= 0)
+                        forbid(forbidden, freq[u], net.separation(arc), nbAvailFreq);
+            }
+            int f = -1;
+            for (int v = 0; v < nbAvailFreq && f < 0; v++)
+                if (used[v] && !isSet(forbidden, v))
+                    f = v;
+            for (int v = 0; v < nbAvailFreq && f < 0; v++)
+                if (!isSet(forbidden, v))
+                    f = v;
+            if (f < 0)
+                return null;
+            freq[t] = f;
+            used[f] = true;
+
+            for (int u = net.firstTransmitter(c); u < net.endTransmitter(c); u++)
+                see(u, f, freq, seen, words, saturation, degree, heap);
+            for (int arc = net.firstNeighbour(c); arc < net.endNeighbour(c); arc++) {
+                int c2 = net.neighbour(arc);
+                for (int u = net.firstTransmitter(c2); u < net.endTransmitter(c2); u++)
+                    see(u, f, freq, seen, words, saturation, degree, heap);
+            }
+        }
+        return freq;
+    }
+
+    public static int countDifferent(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++)
+            if (i == 0 || sorted[i] != sorted[i - 1])
+                n++;
+        return n;
+    }
+
+    private static void see(int u, int f, int[] freq, long[] seen, int words,
+                            int[] saturation, int[] degree, LongHeap heap) {
+        if (freq[u] >= 0)
+            return;
+        int w = u * words + (f >>> 6);
+        long bit = 1L << (f & 63);
+        if ((seen[w] & bit) != 0)
+            return;
+        seen[w] |= bit;
+        saturation[u]++;
+        heap.push(key(saturation[u], degree[u], u));
+    }
+
+    private static void forbid(long[] bits, int f, int sep, int nbAvailFreq) {
+        int lo = Math.max(0, f - sep + 1);
+        int hi = Math.min(nbAvailFreq - 1, f + sep - 1);
+        for (int v = lo; v <= hi; v++)
+            bits[v >>> 6] |= 1L << (v & 63);
+    }
+
+    private static boolean isSet(long[] bits, int v) {
+        return (bits[v >>> 6] & (1L << (v & 63))) != 0;
+    }
+
+    // Saturation in the high bits, then degree, then the transmitter; the ranges are checked in dsatur
+    private static long key(int saturation, int degree, int t) {
+        return ((long) saturation << 42) | ((long) degree << T_BITS) | t;
+    }
+
+    // Binary max-heap of longs
+    static class LongHeap {
+        private long[] a;
+        private int size;
+
+        LongHeap(int capacity) {
+            a = new long[Math.max(capacity, 1)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(long v) {
+            if (size == a.length)
+                a = Arrays.copyOf(a, 2 * size);
+            int i = size++;
+            while (i > 0 && a[(i - 1) >>> 1] < v) {
+                a[i] = a[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+            a[i] = v;
+        }
+
+        long pop() {
+            long top = a[0];
+            long v = a[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size)
+                    break;
+                if (child + 1 < size && a[child + 1] > a[child])
+                    child++;
+                if (a[child] <= v)
+                    break;
+                a[i] = a[child];
+                i = child;
+            }
+            a[i] = v;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Cells of a frequency-assignment problem and the separations between them.
+ *
+ * The transmitters of cell c are numbered channelStart[c] .. channelStart[c+1]-1,
+ * so the index of a (cell, channel) pair is one addition. Only cell pairs that
+ * interfere are stored, in compressed sparse row form: the neighbours of cell
+ * c are neighbour[neighbourStart[c]] .. neighbour[neighbourStart[c+1]-1] with
+ * the matching minimum separations in separation[]. Every pair appears once
+ * from each side with the same separation: fromMatrix reads the upper
+ * triangle of dist and mirrors it. Transmitters of the same cell are
+ * separated by coSeparation.
+ */
+public class FrequencyNetwork {
+
+    private final int nbCell;
+    private final int coSeparation;
+    private final int[] channelStart;
+    private final int[] neighbourStart;
+    private final int[] neighbour;
+    private final int[] separation;
+
+    private FrequencyNetwork(int nbCell, int coSeparation, int[] channelStart,
+                             int[] neighbourStart, int[] neighbour, int[] separation) {
+        this.nbCell = nbCell;
+        this.coSeparation = coSeparation;
+        this.channelStart = channelStart;
+        this.neighbourStart = neighbourStart;
+        this.neighbour = neighbour;
+        this.separation = separation;
+    }
+
+    // Upper-triangle entry of dist for the pair {c1, c2}
+    private static int upper(int[][] dist, int c1, int c2) {
+        return (c1 < c2) ? dist[c1][c2] : dist[c2][c1];
+    }
+
+    // Network of a dense cells x cells separation matrix; zero entries are dropped and
+    // only the upper triangle is read, as the original model did (dist[c1][c2], c1 < c2)
+    public static FrequencyNetwork fromMatrix(int[] nbChannel, int[][] dist, int coSeparation) {
+        int nbCell = nbChannel.length;
+        int[] start = new int[nbCell + 1];
+        for (int c1 = 0; c1 < nbCell; c1++) {
+            int degree = 0;
+            for (int c2 = 0; c2 < nbCell; c2++)
+                if (c2 != c1 && upper(dist, c1, c2) > 0)
+                    degree++;
+            start[c1 + 1] = start[c1] + degree;
+        }
+        int[] neighbour = new int[start[nbCell]];
+        int[] separation = new int[start[nbCell]];
+        for (int c1 = 0; c1 < nbCell; c1++) {
+            int k = start[c1];
+            for (int c2 = 0; c2 < nbCell; c2++)
+                if (c2 != c1 && upper(dist, c1, c2) > 0) {
+                    neighbour[k] = c2;
+                    separation[k++] = upper(dist, c1, c2);
+                }
+        }
+        return new FrequencyNetwork(nbCell, coSeparation, prefixSum(nbChannel), start, neighbour, separation);
+    }
+
+    // Cells dropped uniformly on a square with one cell per unit of area; cells closer
+    // than 2 interfere, with separation 2 below distance 1 and 1 otherwise
+    public static FrequencyNetwork random(int nbCell, int maxChannel, int coSeparation, long seed) {
+        Random random = new Random(seed);
+        double side = Math.sqrt(nbCell);
+        double radius = 2.0;
+        int[] nbChannel = new int[nbCell];
+        double[] x = new double[nbCell];
+        double[] y = new double[nbCell];
+        for (int c = 0; c < nbCell; c++) {
+            nbChannel[c] = 1 + random.nextInt(maxChannel);
+            x[c] = random.nextDouble() * side;
+            y[c] = random.nextDouble() * side;
+        }
+
+        // Bucket the cells on a grid of radius-wide squares so that only the
+        // 3x3 squares around a cell have to be scanned for its neighbours
+        int grid = Math.max(1, (int) Math.ceil(side / radius));
+        int[] bucketStart = new int[grid * grid + 1];
+        int[] bucketOf = new int[nbCell];
+        for (int c = 0; c < nbCell; c++) {
+            bucketOf[c] = bucket(x[c], radius, grid) * grid + bucket(y[c], radius, grid);
+            bucketStart[bucketOf[c] + 1]++;
+        }
+        for (int b = 0; b < grid * grid; b++)
+            bucketStart[b + 1] += bucketStart[b];
+        int[] bucketCells = new int[nbCell];
+        int[] fill = Arrays.copyOf(bucketStart, grid * grid);
+        for (int c = 0; c < nbCell; c++)
+            bucketCells[fill[bucketOf[c]]++] = c;
+
+        int[] start = new int[nbCell + 1];
+        int[] neighbour = new int[16 * nbCell];
+        int[] separation = new int[16 * nbCell];
+        int nbArcs = 0;
+        for (int c1 = 0; c1 < nbCell; c1++) {
+            int bx = bucketOf[c1] / grid;
+            int by = bucketOf[c1] % grid;
+            for (int gx = Math.max(0, bx - 1); gx <= Math.min(grid - 1, bx + 1); gx++)
+                for (int gy = Math.max(0, by - 1); gy <= Math.min(grid - 1, by + 1); gy++) {
+                    int b = gx * grid + gy;
+                    for (int k = bucketStart[b]; k < bucketStart[b + 1]; k++) {
+                        int c2 = bucketCells[k];
+                        double d = Math.hypot(x[c1] - x[c2], y[c1] - y[c2]);
+                        if (c2 == c1 || d >= radius)
+                            continue;
+                        if (nbArcs == neighbour.length) {
+                            neighbour = Arrays.copyOf(neighbour, 2 * nbArcs);
+                            separation = Arrays.copyOf(separation, 2 * nbArcs);
+                        }
+                        neighbour[nbArcs] = c2;
+                        separation[nbArcs++] = (d < 1.0) ? 2 : 1;
+                    }
+                }
+            start[c1 + 1] = nbArcs;
+        }
+        return new FrequencyNetwork(nbCell, coSeparation, prefixSum(nbChannel), start,
+                Arrays.copyOf(neighbour, nbArcs), Arrays.copyOf(separation, nbArcs));
+    }
+
+    private static int bucket(double v, double width, int grid) {
+        return Math.min(grid - 1, (int) (v / width));
+    }
+
+    private static int[] prefixSum(int[] counts) {
+        int[] start = new int[counts.length + 1];
+        for (int i = 0; i < counts.length; i++)
+            start[i + 1] = start[i] + counts[i];
+        return start;
+    }
+
+    // Dense separation matrix, with coSeparation on the diagonal as in Allocation.dist
+    public int[][] toMatrix() {
+        int[][] dist = new int[nbCell][nbCell];
+        for (int c = 0; c < nbCell; c++) {
+            dist[c][c] = coSeparation;
+            for (int k = neighbourStart[c]; k < neighbourStart[c + 1]; k++)
+                dist[c][neighbour[k]] = separation[k];
+        }
+        return dist;
+    }
+
+    public int getNbCell() { return nbCell; }
+    public int getNbTransmitters() { return channelStart[nbCell]; }
+    public int getNbNeighbourArcs() { return neighbour.length; }
+    public int getCoSeparation() { return coSeparation; }
+
+    public int nbChannel(int cell) { return channelStart[cell + 1] - channelStart[cell]; }
+    public int transmitter(int cell, int channel) { return channelStart[cell] + channel; }
+    public int firstTransmitter(int cell) { return channelStart[cell]; }
+    public int endTransmitter(int cell) { return channelStart[cell + 1]; }
+
+    public int firstNeighbour(int cell) { return neighbourStart[cell]; }
+    public int endNeighbour(int cell) { return neighbourStart[cell + 1]; }
+    public int neighbour(int arc) { return neighbour[arc]; }
+    public int separation(int arc) { return separation[arc]; }
+}
@@ -0,0 +1,211 @@
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Many small instance files packed into one random-access archive.
+ *
+ * The archive starts with an index of (name, offset, length) entries followed
+ * by the instance files, byte for byte. It is memory-mapped once per process
+ * and each instance is returned as a slice of that mapping, which a
+ * {@link DataReader} parses in place. Loaders name an archived instance as
+ * "archive.iar#name" wherever they accept a file name (see DataReader.open).
+ *
+ * Usage:
+ *   InstanceArchive create out.iar file|dir|glob ...
+ *   InstanceArchive list   out.iar
+ */
+public class InstanceArchive {
+
+    public static final String EXTENSION = ".iar";
+    static final int MAGIC = 0x49415243;
+    static final int VERSION = 1;
+
+    private static final Map<String, InstanceArchive> opened = new ConcurrentHashMap<String, InstanceArchive>();
+
+    private final ByteBuffer data;
+    private final Map<String, Integer> index = new HashMap<String, Integer>();
+    private final String[] names;
+    private final long[] offsets;
+    private final int[] lengths;
+
+    private InstanceArchive(String filename) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Instance archive larger than 2 GB: " + filename);
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close();
+        }
+        if (data.remaining() < 12 || data.getInt() != MAGIC || data.getInt() != VERSION)
+            throw new IOException("Not an instance archive: " + filename);
+        int count = data.getInt();
+        // Every entry takes at least 18 bytes of header
+        if (count < 0 || count > data.remaining() / 18)
+            throw new IOException("Corrupt instance archive header in " + filename);
+        names = new String[count];
+        offsets = new long[count];
+        lengths = new int[count];
+        long[] length = new long[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[data.getShort() & 0xffff];
+                data.get(name);
+                names[i] = new String(name, StandardCharsets.UTF_8);
+                offsets[i] = data.getLong();
+                length[i] = data.getLong();
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated instance archive header in " + filename);
+        }
+        // Instance bytes lie after the header and inside the file
+        int headerEnd = data.position();
+        for (int i = 0; i < count; i++) {
+            if (offsets[i] < headerEnd || length[i] < 0 || length[i] > data.capacity() - offsets[i])
+                throw new IOException("Corrupt instance archive entry " + names[i] + " in " + filename);
+            lengths[i] = (int) length[i];
+            if (index.put(names[i], i) != null)
+                throw new IOException("Duplicate instance archive entry " + names[i] + " in " + filename);
+        }
+    }
+
+    // The archive mapped for this process, opening it on first use
+    public static InstanceArchive get(String filename) throws IOException {
+        String key = Paths.get(filename).toAbsolutePath().normalize().toString();
+        InstanceArchive archive = opened.get(key);
+        if (archive == null) {
+            synchronized (opened) {
+                archive = opened.get(key);
+                if (archive == null) {
+                    archive = new InstanceArchive(filename);
+                    opened.put(key, archive);
+                }
+            }
+        }
+        return archive;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int i) {
+        return names[i];
+    }
+
+    public List<String> names() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    // Bytes of one instance; every call returns an independent view of the shared mapping
+    public ByteBuffer slice(String name) throws IOException {
+        Integer i = index.get(name);
+        if (i == null)
+            throw new FileNotFoundException("No instance " + name + " in archive");
+        ByteBuffer view = data.duplicate();
+        view.limit((int) offsets[i] + lengths[i]);
+        view.position((int) offsets[i]);
+        return view.slice();
+    }
+
+    public DataReader reader(String name) throws IOException {
+        return new DataReader(slice(name));
+    }
+
+    // Regular files of a directory, or the files matching a glob such as data/ta*.data
+    public static List<Path> listFiles(String arg) throws IOException {
+        Path dir;
+        String pattern;
+        if (new File(arg).isDirectory()) {
+            dir = Paths.get(arg);
+            pattern = "*";
+        } else {
+            Path p = Paths.get(arg);
+            dir = (p.getParent() != null) ? p.getParent() : Paths.get(".");
+            pattern = p.getFileName().toString();
+        }
+        List<Path> files = new ArrayList<Path>();
+        DirectoryStream<Path> stream = Files.newDirectoryStream(dir, pattern);
+        try {
+            for (Path f : stream) {
+                String name = f.getFileName().toString();
+                if (Files.isRegularFile(f) && !name.startsWith(".")
+                        && !name.endsWith(".bin") && !name.endsWith(".tmp"))
+                    files.add(f);
+            }
+        } finally {
+            stream.close();
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    // Instances are named by their file name, which must be unique among the files
+    public static void create(String archive, List<Path> files) throws IOException {
+        byte[][] names = new byte[files.size()][];
+        Map<String, Path> seen = new HashMap<String, Path>();
+        long headerBytes = 12;
+        for (int i = 0; i < files.size(); i++) {
+            String name = files.get(i).getFileName().toString();
+            Path other = seen.put(name, files.get(i));
+            if (other != null)
+                throw new IOException("Duplicate instance name " + name + ": " + other + " and " + files.get(i));
+            names[i] = name.getBytes(StandardCharsets.UTF_8);
+            if (names[i].length > 0xffff)
+                throw new IOException("Instance name too long: " + name);
+            headerBytes += 2 + names[i].length + 8 + 8;
+        }
+        ByteBuffer header = ByteBuffer.allocate((int) headerBytes);
+        header.putInt(MAGIC).putInt(VERSION).putInt(files.size());
+        long offset = headerBytes;
+        for (int i = 0; i < files.size(); i++) {
+            long length = Files.size(files.get(i));
+            header.putShort((short) names[i].length).put(names[i]).putLong(offset).putLong(length);
+            offset += length;
+        }
+        if (offset > Integer.MAX_VALUE)
+            throw new IOException("Instance archive larger than 2 GB: " + archive);
+        header.flip();
+        FileChannel out = FileChannel.open(Paths.get(archive), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            while (header.hasRemaining())
+                out.write(header);
+            for (Path f : files) {
+                FileChannel in = FileChannel.open(f, StandardOpenOption.READ);
+                try {
+                    long pos = 0, size = in.size();
+                    while (pos < size)
+                        pos += in.transferTo(pos, size - pos, out);
+                } finally {
+                    in.close();
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("create")) {
+            List<Path> files = new ArrayList<Path>();
+            for (int a = 2; a < args.length; a++)
+                files.addAll(listFiles(args[a]));
+            create(args[1], files);
+            System.out.println(args[1] + " \t: " + files.size() + " instances");
+        } else if (args.length == 2 && args[0].equals("list")) {
+            InstanceArchive archive = get(args[1]);
+            for (int i = 0; i < archive.size(); i++)
+                System.out.println(archive.names[i] + "\t" + archive.lengths[i]);
+        } else {
+            System.err.println("Usage: InstanceArchive create <out.iar> <file|dir|glob>... | list <archive.iar>");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Binary sidecar cache for text instance files.
+ *
+ * The first time an instance is opened its integers are parsed with a
+ * {@link DataReader} and written to <code>filename.bin</code> as a header
+ * followed by length-prefixed int arrays. The header records the size and
+ * modification time of the text file; while they still match, later runs map
+ * the sidecar and read the integers without tokenizing anything.
+ *
+ * Layout (little endian): magic, version, source size (long), source mtime
+ * (long), number of arrays, then for each array its length and its values.
+ */
+public class InstanceCache {
+
+    static final int MAGIC = 0x43504943;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4;
+
+    public static String sidecarName(String filename) {
+        return filename + ".bin";
+    }
+
+    // Reader over the integers of the instance, from the sidecar when it is current
+    public static DataReader open(String filename) throws IOException {
+        // Archived instances are already one mapping away, they get no sidecar
+        if (filename.indexOf('#') > 0 && !Files.exists(Paths.get(filename)))
+            return DataReader.open(filename);
+        IntBuffer[] arrays;
+        try {
+            arrays = read(filename);
+        } catch (IOException e) {
+            // Unreadable sidecar: parse the text file and write the sidecar again
+            arrays = null;
+        }
+        if (arrays != null && arrays.length == 1)
+            return new DataReader(arrays[0]);
+        int[] values = readAll(new DataReader(filename));
+        try {
+            write(filename, new int[][] { values });
+        } catch (IOException e) {
+            // The cache is only an accelerator, a read-only data directory is fine
+        }
+        return new DataReader(IntBuffer.wrap(values));
+    }
+
+    public static int[] readAll(DataReader data) throws IOException {
+        int[] values = new int[1024];
+        int n = 0;
+        while (data.hasNext()) {
+            if (n == values.length)
+                values = Arrays.copyOf(values, 2 * n);
+            values[n++] = data.next();
+        }
+        return Arrays.copyOf(values, n);
+    }
+
+    // Arrays stored for the text file, or null if there is no current sidecar
+    public static IntBuffer[] read(String filename) throws IOException {
+        Path source = Paths.get(filename);
+        Path sidecar = Paths.get(sidecarName(filename));
+        if (!Files.isRegularFile(sidecar))
+            return null;
+        ByteBuffer buf;
+        FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE)
+                return null;
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        } finally {
+            channel.close();
+        }
+        if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+            return null;
+        if (buf.getLong() != Files.size(source)
+                || buf.getLong() != Files.getLastModifiedTime(source).toMillis())
+            return null;
+        int count = buf.getInt();
+        if (count < 0)
+            return null;
+        IntBuffer[] arrays = new IntBuffer[count];
+        for (int a = 0; a < count; a++) {
+            if (buf.remaining() < 4)
+                return null;
+            int length = buf.getInt();
+            if (length < 0 || buf.remaining() < 4L * length)
+                return null;
+            ByteBuffer slice = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+            slice.limit(4 * length);
+            arrays[a] = slice.asIntBuffer();
+            buf.position(buf.position() + 4 * length);
+        }
+        return arrays;
+    }
+
+    public static void write(String filename, int[][] arrays) throws IOException {
+        Path source = Paths.get(filename);
+        Path sidecar = Paths.get(sidecarName(filename));
+        long sourceSize = Files.size(source);
+        long sourceTime = Files.getLastModifiedTime(source).toMillis();
+        Path dir = sidecar.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, sidecar.getFileName().toString(), ".tmp");
+        try {
+            writeArrays(tmp, sourceSize, sourceTime, arrays);
+            Files.move(tmp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    static void writeArrays(Path path, long sourceSize, long sourceTime, int[][] arrays) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putLong(sourceSize).putLong(sourceTime).putInt(arrays.length);
+            for (int[] array : arrays) {
+                if (buf.remaining() < 4)
+                    drain(channel, buf);
+                buf.putInt(array.length);
+                int i = 0;
+                while (i < array.length) {
+                    int n = Math.min(array.length - i, buf.remaining() / 4);
+                    if (n == 0) {
+                        drain(channel, buf);
+                        continue;
+                    }
+                    buf.asIntBuffer().put(array, i, n);
+                    buf.position(buf.position() + 4 * n);
+                    i += n;
+                }
+            }
+            drain(channel, buf);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining())
+            channel.write(buf);
+        buf.clear();
+    }
+}
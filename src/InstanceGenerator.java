@@ -0,0 +1,270 @@
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates instances of any size, reproducible from a seed, in the text
+ * formats read by Facility, PlantLocation, SchedJobShop, SchedRCPSP and
+ * Talent.
+ *
+ * Every generated file also gets its binary {@link InstanceCache} sidecar, so
+ * the first run of an example on it already skips tokenizing.
+ *
+ * Usage:
+ *   InstanceGenerator facility      nbLocations nbStores    seed out
+ *   InstanceGenerator plantlocation nbCustomers nbLocations seed out
+ *   InstanceGenerator jobshop       nbJobs      nbMachines  seed out
+ *   InstanceGenerator rcpsp         nbTasks     nbResources seed out
+ *   InstanceGenerator talent        nbActors    nbScenes    seed out
+ */
+public class InstanceGenerator {
+
+    // Integers of an instance in file order, with the line breaks used to print them
+    static class Tokens {
+        private int[] values = new int[1024];
+        private int[] lineEnds = new int[64];
+        private int size, lines;
+
+        void add(int v) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, 2 * size);
+            values[size++] = v;
+        }
+
+        void newLine() {
+            if (lines == lineEnds.length)
+                lineEnds = Arrays.copyOf(lineEnds, 2 * lines);
+            lineEnds[lines++] = size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        void write(String filename) throws IOException {
+            Writer w = new BufferedWriter(new FileWriter(filename), 1 << 16);
+            try {
+                int line = 0;
+                boolean lineStart = true;
+                for (int i = 0; i < size; i++) {
+                    while (line < lines && lineEnds[line] == i) {
+                        w.write('\n');
+                        line++;
+                        lineStart = true;
+                    }
+                    if (!lineStart)
+                        w.write(' ');
+                    w.write(Integer.toString(values[i]));
+                    lineStart = false;
+                }
+                for (; line < lines; line++)
+                    w.write('\n');
+            } finally {
+                w.close();
+            }
+        }
+    }
+
+    public static Tokens facility(int nbLocations, int nbStores, long seed) {
+        Random rnd = new Random(seed);
+        Tokens t = new Tokens();
+        t.add(nbLocations);
+        t.newLine();
+        t.add(nbStores);
+        t.newLine();
+        int[] capacity = new int[nbLocations];
+        int maxCap = Math.max(1, (2 * nbStores) / nbLocations);
+        int total = 0;
+        for (int j = 0; j < nbLocations; j++) {
+            capacity[j] = 1 + rnd.nextInt(maxCap);
+            total += capacity[j];
+        }
+        // Keep the instance feasible: every store must fit somewhere
+        for (int j = 0; total < nbStores; j = (j + 1) % nbLocations) {
+            capacity[j]++;
+            total++;
+        }
+        for (int j = 0; j < nbLocations; j++)
+            t.add(capacity[j]);
+        t.newLine();
+        for (int j = 0; j < nbLocations; j++)
+            t.add(200 + rnd.nextInt(301));
+        t.newLine();
+        for (int i = 0; i < nbStores; i++) {
+            for (int j = 0; j < nbLocations; j++)
+                t.add(10 + rnd.nextInt(90));
+            t.newLine();
+        }
+        return t;
+    }
+
+    public static Tokens plantLocation(int nbCustomers, int nbLocations, long seed) {
+        Random rnd = new Random(seed);
+        Tokens t = new Tokens();
+        t.add(nbCustomers);
+        t.newLine();
+        t.add(nbLocations);
+        t.newLine();
+        for (int c = 0; c < nbCustomers; c++) {
+            for (int w = 0; w < nbLocations; w++)
+                t.add(1 + rnd.nextInt(99));
+            t.newLine();
+        }
+        int totalDemand = 0, maxDemand = 0;
+        for (int c = 0; c < nbCustomers; c++) {
+            int d = 1 + rnd.nextInt(20);
+            totalDemand += d;
+            maxDemand = Math.max(maxDemand, d);
+            t.add(d);
+        }
+        t.newLine();
+        for (int w = 0; w < nbLocations; w++)
+            t.add(500 + rnd.nextInt(1001));
+        t.newLine();
+        // About 1.5 times the total demand in capacity, each plant holding the largest customer
+        int meanCap = Math.max(maxDemand, (3 * totalDemand) / (2 * nbLocations));
+        for (int w = 0; w < nbLocations; w++)
+            t.add(Math.max(maxDemand, meanCap / 2 + rnd.nextInt(meanCap + 1)));
+        t.newLine();
+        return t;
+    }
+
+    // Taillard style: each job visits every machine once in random order, durations in [1,99]
+    public static Tokens jobShop(int nbJobs, int nbMachines, long seed) {
+        Random rnd = new Random(seed);
+        Tokens t = new Tokens();
+        t.add(nbJobs);
+        t.add(nbMachines);
+        t.newLine();
+        int[] order = new int[nbMachines];
+        for (int i = 0; i < nbJobs; i++) {
+            for (int j = 0; j < nbMachines; j++)
+                order[j] = j;
+            for (int j = nbMachines - 1; j > 0; j--) {
+                int k = rnd.nextInt(j + 1);
+                int tmp = order[j];
+                order[j] = order[k];
+                order[k] = tmp;
+            }
+            for (int j = 0; j < nbMachines; j++) {
+                t.add(order[j]);
+                t.add(1 + rnd.nextInt(99));
+            }
+            t.newLine();
+        }
+        return t;
+    }
+
+    // PSPLIB style: a dummy source and sink, forward-only successor arcs numbered from 1
+    public static Tokens rcpsp(int nbTasks, int nbResources, long seed) {
+        Random rnd = new Random(seed);
+        int[] durations = new int[nbTasks];
+        int[] demands = new int[nbTasks * nbResources];
+        int[] maxDemand = new int[nbResources];
+        for (int i = 1; i < nbTasks - 1; i++) {
+            durations[i] = 1 + rnd.nextInt(10);
+            for (int j = 0; j < nbResources; j++) {
+                int q = (rnd.nextInt(4) == 0) ? 0 : 1 + rnd.nextInt(10);
+                demands[i * nbResources + j] = q;
+                maxDemand[j] = Math.max(maxDemand[j], q);
+            }
+        }
+        Tokens t = new Tokens();
+        t.add(nbTasks);
+        t.add(nbResources);
+        t.newLine();
+        for (int j = 0; j < nbResources; j++)
+            t.add(Math.max(maxDemand[j], 10 + rnd.nextInt(21)));
+        t.newLine();
+        int window = 20;
+        int[] succ = new int[3];
+        for (int i = 0; i < nbTasks; i++) {
+            t.add(durations[i]);
+            for (int j = 0; j < nbResources; j++)
+                t.add(demands[i * nbResources + j]);
+            int nbSucc = 0;
+            if (i == 0) {
+                // The source starts a handful of chains
+                int n = Math.min(3, nbTasks - 2);
+                for (int s = 0; s < n; s++)
+                    succ[nbSucc++] = 1 + s;
+            } else if (i < nbTasks - 1) {
+                int span = Math.min(window, nbTasks - 1 - i);
+                int n = 1 + rnd.nextInt(Math.min(3, span));
+                for (int s = 0; s < n; s++) {
+                    int k = i + 1 + rnd.nextInt(span);
+                    boolean dup = false;
+                    for (int p = 0; p < nbSucc; p++)
+                        dup |= (succ[p] == k);
+                    if (!dup)
+                        succ[nbSucc++] = k;
+                }
+            }
+            if (nbTasks == 2 && i == 0)
+                succ[nbSucc++] = 1;
+            t.add(nbSucc);
+            for (int s = 0; s < nbSucc; s++)
+                t.add(succ[s] + 1);
+            t.newLine();
+        }
+        return t;
+    }
+
+    public static void write(Tokens tokens, String filename) throws IOException {
+        tokens.write(filename);
+        InstanceCache.write(filename, new int[][] { tokens.toArray() });
+    }
+
+    // Rehearsal: actor pays, scene durations, then one 0/1 row of scenes per actor
+    public static Tokens talent(int nbActors, int nbScenes, long seed) {
+        Random rnd = new Random(seed);
+        Tokens t = new Tokens();
+        t.add(nbActors);
+        for (int a = 0; a < nbActors; a++)
+            t.add(1 + rnd.nextInt(10));
+        t.newLine();
+        t.add(nbScenes);
+        for (int s = 0; s < nbScenes; s++)
+            t.add(1 + rnd.nextInt(10));
+        t.newLine();
+        for (int a = 0; a < nbActors; a++) {
+            // Every actor plays in at least one scene
+            int forced = rnd.nextInt(nbScenes);
+            for (int s = 0; s < nbScenes; s++)
+                t.add(s == forced || rnd.nextInt(2) == 0 ? 1 : 0);
+            t.newLine();
+        }
+        return t;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.err.println("Usage: InstanceGenerator <facility|plantlocation|jobshop|rcpsp|talent> <size1> <size2> <seed> <out>");
+            System.exit(1);
+        }
+        String kind = args[0];
+        int n1 = Integer.parseInt(args[1]);
+        int n2 = Integer.parseInt(args[2]);
+        long seed = Long.parseLong(args[3]);
+        String out = args[4];
+
+        Tokens tokens;
+        if (kind.equals("facility"))
+            tokens = facility(n1, n2, seed);
+        else if (kind.equals("plantlocation"))
+            tokens = plantLocation(n1, n2, seed);
+        else if (kind.equals("jobshop"))
+            tokens = jobShop(n1, n2, seed);
+        else if (kind.equals("rcpsp"))
+            tokens = rcpsp(n1, n2, seed);
+        else if (kind.equals("talent"))
+            tokens = talent(n1, n2, seed);
+        else
+            throw new IllegalArgumentException("Unknown instance kind: " + kind);
+
+        long start = System.nanoTime();
+        write(tokens, out);
+        System.out.format("%s \t: %d integers written in %.2f s%n",
+                out, tokens.size, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.Arrays;
+
+/**
+ * Precedence graph of a job-shop once the order of the operations on every
+ * machine is fixed.
+ *
+ * Operation j of job i has the id i * nbMachines + j. Each operation has at
+ * most two predecessors, the previous operation of its job and the previous
+ * operation on its machine, so the graph is held in two int arrays plus a
+ * topological order. The makespan for a given vector of durations is then
+ * one longest-path pass over that order, without calling the solver.
+ */
+public class JobShopGraph {
+
+    private final int nbOps;
+    private final int[] jobPred;
+    private final int[] machinePred;
+    private final int[] topoOrder;
+
+    // machines[i][j]: machine of operation j of job i; orders[m]: operation ids in sequence on machine m
+    public JobShopGraph(int[][] machines, int[][] orders) {
+        int nbJobs = machines.length;
+        int nbMachines = machines[0].length;
+        nbOps = nbJobs * nbMachines;
+        jobPred = new int[nbOps];
+        machinePred = new int[nbOps];
+        int[] jobSucc = new int[nbOps];
+        int[] machineSucc = new int[nbOps];
+        Arrays.fill(jobPred, -1);
+        Arrays.fill(machinePred, -1);
+        Arrays.fill(jobSucc, -1);
+        Arrays.fill(machineSucc, -1);
+        for (int i = 0; i < nbJobs; i++)
+            for (int j = 1; j < nbMachines; j++) {
+                jobPred[i * nbMachines + j] = i * nbMachines + j - 1;
+                jobSucc[i * nbMachines + j - 1] = i * nbMachines + j;
+            }
+        for (int[] order : orders)
+            for (int k = 1; k < order.length; k++) {
+                machinePred[order[k]] = order[k - 1];
+                machineSucc[order[k - 1]] = order[k];
+            }
+
+        // Kahn's algorithm on the two successor arrays
+        int[] inDegree = new int[nbOps];
+        for (int v = 0; v < nbOps; v++)
+            inDegree[v] = (jobPred[v] >= 0 ? 1 : 0) + (machinePred[v] >= 0 ? 1 : 0);
+        topoOrder = new int[nbOps];
+        int head = 0, tail = 0;
+        for (int v = 0; v < nbOps; v++)
+            if (inDegree[v] == 0)
+                topoOrder[tail++] = v;
+        while (head < tail) {
+            int v = topoOrder[head++];
+            if (jobSucc[v] >= 0 && --inDegree[jobSucc[v]] == 0)
+                topoOrder[tail++] = jobSucc[v];
+            if (machineSucc[v] >= 0 && --inDegree[machineSucc[v]] == 0)
+                topoOrder[tail++] = machineSucc[v];
+        }
+        if (tail != nbOps)
+            throw new IllegalArgumentException("Machine orders create a cycle with the job routes");
+    }
+
+    public int getNbOps() { return nbOps; }
+
+    // Earliest start schedule for the durations indexed by operation id; start and
+    // end are filled in and the makespan is returned
+    public int schedule(int[] duration, int[] start, int[] end) {
+        double[] d = new double[nbOps];
+        double[] s = new double[nbOps];
+        double[] e = new double[nbOps];
+        for (int v = 0; v < nbOps; v++)
+            d[v] = duration[v];
+        double makespan = longestPath(d, s, e);
+        for (int v = 0; v < nbOps; v++) {
+            start[v] = (int) s[v];
+            end[v] = (int) e[v];
+        }
+        return (int) makespan;
+    }
+
+    // Makespan for real-valued durations; end is scratch space of nbOps entries
+    public double makespan(double[] duration, double[] end) {
+        return longestPath(duration, null, end);
+    }
+
+    // Average makespan over scenarios of durations indexed by operation id
+    public double expectedMakespan(int[][] scenarios) {
+        double[] d = new double[nbOps];
+        double[] end = new double[nbOps];
+        double sum = 0;
+        for (int[] duration : scenarios) {
+            for (int v = 0; v < nbOps; v++)
+                d[v] = duration[v];
+            sum += longestPath(d, null, end);
+        }
+        return sum / scenarios.length;
+    }
+
+    // One pass over the topological order: earliest start and end of every
+    // operation, start may be null. Integer durations are exact in a double.
+    private double longestPath(double[] duration, double[] start, double[] end) {
+        double makespan = 0;
+        for (int v : topoOrder) {
+            double s = 0;
+            if (jobPred[v] >= 0)
+                s = end[jobPred[v]];
+            if (machinePred[v] >= 0 && end[machinePred[v]] > s)
+                s = end[machinePred[v]];
+            if (start != null)
+                start[v] = s;
+            end[v] = s + duration[v];
+            if (end[v] > makespan)
+                makespan = end[v];
+        }
+        return makespan;
+    }
+}
@@ -0,0 +1,92 @@
+import ilog.concert.IloException;
+import ilog.concert.IloLPMatrix;
+import ilog.concert.IloNumVar;
+import ilog.cplex.IloCplex;
+
+import java.util.Arrays;
+
+/**
+ * Collects the rows of a linear model in compressed sparse row arrays and
+ * adds them to an IloCplex through one IloLPMatrix.
+ *
+ * Row r has the coefficients val[rowStart[r]] .. val[rowStart[r+1]-1] on the
+ * columns colIdx[...] and the bounds lb[r] &lt;= row &lt;= ub[r]. Columns are
+ * positions in the variable array given to {@link #build}. No Concert object
+ * is created per term: rows are written with {@link #addTerm} and
+ * {@link #endRow}, and {@link #build} passes everything to addRows at once.
+ */
+public class LPMatrixBuilder {
+
+    private int nbRows;
+    private double[] lb;
+    private double[] ub;
+    private int[] rowStart;
+    private int[] colIdx;
+    private double[] val;
+    private int nnz;
+
+    public LPMatrixBuilder() {
+        this(16, 64);
+    }
+
+    public LPMatrixBuilder(int rowCapacity, int nnzCapacity) {
+        lb = new double[Math.max(rowCapacity, 1)];
+        ub = new double[lb.length];
+        rowStart = new int[lb.length + 1];
+        colIdx = new int[Math.max(nnzCapacity, 1)];
+        val = new double[colIdx.length];
+    }
+
+    // Adds a term to the row being written
+    public LPMatrixBuilder addTerm(int col, double coef) {
+        if (nnz == colIdx.length) {
+            colIdx = Arrays.copyOf(colIdx, 2 * nnz);
+            val = Arrays.copyOf(val, 2 * nnz);
+        }
+        colIdx[nnz] = col;
+        val[nnz++] = coef;
+        return this;
+    }
+
+    // Closes the row being written with its bounds and returns its index
+    public int endRow(double lower, double upper) {
+        if (nbRows == lb.length) {
+            lb = Arrays.copyOf(lb, 2 * nbRows);
+            ub = Arrays.copyOf(ub, 2 * nbRows);
+            rowStart = Arrays.copyOf(rowStart, 2 * nbRows + 1);
+        }
+        lb[nbRows] = lower;
+        ub[nbRows] = upper;
+        rowStart[++nbRows] = nnz;
+        return nbRows - 1;
+    }
+
+    public int addLe(double upper) {
+        return endRow(-Double.MAX_VALUE, upper);
+    }
+
+    public int addGe(double lower) {
+        return endRow(lower, Double.MAX_VALUE);
+    }
+
+    public int addEq(double rhs) {
+        return endRow(rhs, rhs);
+    }
+
+    public int getNbRows() { return nbRows; }
+    public int getNNZ() { return nnz; }
+
+    // Adds the columns and all the rows to the model as one LP matrix
+    public IloLPMatrix build(IloCplex model, IloNumVar[] columns) throws IloException {
+        int[][] ind = new int[nbRows][];
+        double[][] coef = new double[nbRows][];
+        for (int r = 0; r < nbRows; r++) {
+            ind[r] = Arrays.copyOfRange(colIdx, rowStart[r], rowStart[r + 1]);
+            coef[r] = Arrays.copyOfRange(val, rowStart[r], rowStart[r + 1]);
+        }
+        IloLPMatrix lp = model.addLPMatrix();
+        lp.addCols(columns);
+        lp.addRows(Arrays.copyOf(lb, nbRows), Arrays.copyOf(ub, nbRows), ind, coef);
+        return lp;
+    }
+}
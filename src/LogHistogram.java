@@ -0,0 +1,81 @@
+import java.util.Arrays;
+
+/**
+ * Histogram of non-negative long values with a bounded relative error, in
+ * the spirit of HdrHistogram.
+ *
+ * Values below 2 * SUB_BUCKETS are counted exactly. Above, each power of two
+ * is split into SUB_BUCKETS equal buckets, so a value is known to within
+ * 1 / SUB_BUCKETS of itself (under 1%). The counts array grows to the
+ * largest bucket used, at most a few thousand longs.
+ */
+public class LogHistogram {
+
+    static final int SUB_BITS = 7;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private long[] counts = new long[2 * SUB_BUCKETS];
+    private long total;
+    private long min = Long.MAX_VALUE;
+    private long max;
+    private double sum;
+
+    static int index(long value) {
+        int e = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+        return e * SUB_BUCKETS + (int) (value >>> e);
+    }
+
+    // Largest value counted in bucket idx
+    static long highestValue(int idx) {
+        if (idx < 2 * SUB_BUCKETS)
+            return idx;
+        int e = idx / SUB_BUCKETS - 1;
+        long m = idx - (long) e * SUB_BUCKETS;
+        return ((m + 1) << e) - 1;
+    }
+
+    public void record(long value) {
+        if (value < 0)
+            throw new IllegalArgumentException("Negative value " + value);
+        int idx = index(value);
+        if (idx >= counts.length)
+            counts = Arrays.copyOf(counts, Math.max(idx + 1, 2 * counts.length));
+        counts[idx]++;
+        total++;
+        sum += value;
+        if (value < min)
+            min = value;
+        if (value > max)
+            max = value;
+    }
+
+    public void add(LogHistogram other) {
+        if (other.counts.length > counts.length)
+            counts = Arrays.copyOf(counts, other.counts.length);
+        for (int i = 0; i < other.counts.length; i++)
+            counts[i] += other.counts[i];
+        total += other.total;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() { return total; }
+    public long getMin() { return total == 0 ? 0 : min; }
+    public long getMax() { return max; }
+    public double getMean() { return total == 0 ? 0 : sum / total; }
+
+    // Value at or below which the given percentage of the recorded values fall
+    public long percentile(double percent) {
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(highestValue(i), max);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,130 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+
+/**
+ * Estimates the expected makespan of fixed machine sequences when every
+ * operation duration is uniform on [minDuration, maxDuration], without
+ * calling the solver.
+ *
+ * Samples are cut into blocks of BLOCK samples; block b draws from the b-th
+ * split of a SplittableRandom seeded with the given seed, so the estimate
+ * depends on the seed but not on the number of threads.
+ *
+ * With Monte-Carlo sampling every duration is drawn independently. With
+ * descriptive sampling each block is stratified on its own: the n values of
+ * an operation in a block of n samples are the midpoints of n equal strata
+ * of its range, taken in a random order, so each marginal is sampled exactly
+ * within the block and only the pairing between operations is random. The
+ * memory stays at one block of strata per thread whatever the sample count.
+ */
+public class MakespanSimulator {
+
+    static final int BLOCK = 1024;
+
+    private final JobShopGraph graph;
+    private final double[] minDuration;
+    private final double[] maxDuration;
+
+    // Durations indexed by operation id, see JobShopGraph
+    public MakespanSimulator(JobShopGraph graph, double[] minDuration, double[] maxDuration) {
+        if (minDuration.length != graph.getNbOps() || maxDuration.length != graph.getNbOps())
+            throw new IllegalArgumentException("One duration range per operation expected");
+        this.graph = graph;
+        this.minDuration = minDuration.clone();
+        this.maxDuration = maxDuration.clone();
+    }
+
+    // Ranges spanned by the durations of a set of scenarios indexed by operation id
+    public static MakespanSimulator fromScenarios(JobShopGraph graph, int[][] scenarios) {
+        int nbOps = graph.getNbOps();
+        double[] lo = new double[nbOps];
+        double[] hi = new double[nbOps];
+        for (int v = 0; v < nbOps; v++) {
+            lo[v] = Double.MAX_VALUE;
+            hi[v] = -Double.MAX_VALUE;
+            for (int[] duration : scenarios) {
+                lo[v] = Math.min(lo[v], duration[v]);
+                hi[v] = Math.max(hi[v], duration[v]);
+            }
+        }
+        return new MakespanSimulator(graph, lo, hi);
+    }
+
+    public double monteCarlo(int nbSamples, long seed, int nbThreads) throws InterruptedException {
+        return run(nbSamples, seed, nbThreads, false);
+    }
+
+    public double descriptive(int nbSamples, long seed, int nbThreads) throws InterruptedException {
+        return run(nbSamples, seed, nbThreads, true);
+    }
+
+    private double run(int nbSamples, long seed, int nbThreads, final boolean stratified) throws InterruptedException {
+        if (nbSamples <= 0)
+            throw new IllegalArgumentException("nbSamples must be positive");
+        int nbBlocks = (int) (((long) nbSamples + BLOCK - 1) / BLOCK);
+        SplittableRandom root = new SplittableRandom(seed);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(nbThreads, nbBlocks)));
+        try {
+            List<Future<Double>> sums = new ArrayList<Future<Double>>();
+            for (int b = 0; b < nbBlocks; b++) {
+                final int first = b * BLOCK;
+                final int last = first + Math.min(BLOCK, nbSamples - first);
+                final SplittableRandom rng = root.split();
+                sums.add(pool.submit(new Callable<Double>() {
+                    public Double call() {
+                        return stratified ? stratifiedBlock(last - first, rng) : sampleBlock(first, last, rng);
+                    }
+                }));
+            }
+            double sum = 0;
+            for (Future<Double> f : sums)
+                sum += f.get();
+            return sum / nbSamples;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private double sampleBlock(int first, int last, SplittableRandom rng) {
+        int nbOps = graph.getNbOps();
+        double[] duration = new double[nbOps];
+        double[] end = new double[nbOps];
+        double sum = 0;
+        for (int s = first; s < last; s++) {
+            for (int v = 0; v < nbOps; v++)
+                duration[v] = minDuration[v] + (maxDuration[v] - minDuration[v]) * rng.nextDouble();
+            sum += graph.makespan(duration, end);
+        }
+        return sum;
+    }
+
+    // Descriptive sample of n makespans; strata[v * n + s]: stratum of operation v in sample s
+    private double stratifiedBlock(int n, SplittableRandom rng) {
+        int nbOps = graph.getNbOps();
+        int[] strata = new int[nbOps * n];
+        for (int v = 0; v < nbOps; v++) {
+            int base = v * n;
+            for (int s = 0; s < n; s++)
+                strata[base + s] = s;
+            for (int s = n - 1; s > 0; s--) {
+                int r = rng.nextInt(s + 1);
+                int t = strata[base + s];
+                strata[base + s] = strata[base + r];
+                strata[base + r] = t;
+            }
+        }
+        double[] duration = new double[nbOps];
+        double[] end = new double[nbOps];
+        double sum = 0;
+        for (int s = 0; s < n; s++) {
+            for (int v = 0; v < nbOps; v++)
+                duration[v] = minDuration[v] + (maxDuration[v] - minDuration[v]) * (strata[v * n + s] + 0.5) / n;
+            sum += graph.makespan(duration, end);
+        }
+        return sum;
+    }
+}
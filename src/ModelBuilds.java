@@ -0,0 +1,211 @@
+import ilog.concert.IloException;
+import ilog.concert.IloIntExpr;
+import ilog.concert.IloIntVar;
+import ilog.cp.IloCP;
+import ilog.cplex.IloCplex;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Concert model construction of the examples at a given scale, without
+ * solving, for benchmark harnesses.
+ *
+ * {@link #builder} generates and parses the instance data once and returns a
+ * task that builds the whole model into the IloCP it is given, so that a
+ * build makes Concert calls only and creates no other engine. The benchmark module
+ * (benchmarks/) lives in a named package, as JMH requires, and cannot link
+ * against the default package: it looks builder up by reflection once per
+ * trial and then only calls Consumer.accept.
+ *
+ * Scale 1 is about the size of the shipped data; each model grows its main
+ * dimension linearly with the scale. {@link #VARIANTS} are other
+ * formulations of some of the models, built from the same data so that
+ * they can be compared with them, and {@link #lpBuilder} does the same for
+ * the IloCplex model of example_3.
+ */
+public class ModelBuilds {
+
+    public static final String[] MODELS = {
+        "Facility", "PlantLocation", "Allocation", "Ppp", "Talent", "Truckfleet", "Sports", "SchedJobShop", "SchedRCPSP"
+    };
+
+    // Name.variant: the model Name built another way
+    public static final String[] VARIANTS = {
+        "Allocation.dense", "Ppp.compact", "SumBuilder", "SumBuilder.chained"
+    };
+
+    static DataReader reader(int[] values) {
+        return new DataReader(IntBuffer.wrap(values));
+    }
+
+    // Checked exceptions of Concert are not allowed through Consumer
+    static abstract class Build implements Consumer<IloCP> {
+        public void accept(IloCP cp) {
+            try {
+                build(cp);
+            } catch (IloException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        abstract void build(IloCP cp) throws IloException;
+    }
+
+    static int denseIndex(int[] nbChannel, int cell, int channel) {
+        int idx = 0;
+        int c = 0;
+        while (c < cell)
+            idx += nbChannel[c++];
+        return idx + channel;
+    }
+
+    // Allocation as it was before FrequencyNetwork: the dense dist matrix is
+    // scanned and each transmitter index is found by walking nbChannel from cell 0
+    static void buildDenseAllocation(IloCP cp, int[] nbChannel, int[][] dist) throws IloException {
+        int nbCell = nbChannel.length;
+        IloIntVar[] freq = cp.intVarArray(denseIndex(nbChannel, nbCell, 0), 0, Allocation.nbAvailFreq - 1);
+        for (int cell = 0; cell < nbCell; cell++)
+            for (int channel1 = 0; channel1 < nbChannel[cell]; channel1++)
+                for (int channel2 = channel1 + 1; channel2 < nbChannel[cell]; channel2++)
+                    cp.add(cp.ge(cp.abs(cp.diff(freq[denseIndex(nbChannel, cell, channel1)],
+                            freq[denseIndex(nbChannel, cell, channel2)])), 16));
+        for (int cell1 = 0; cell1 < nbCell; cell1++)
+            for (int cell2 = cell1 + 1; cell2 < nbCell; cell2++)
+                if (dist[cell1][cell2] > 0)
+                    for (int channel1 = 0; channel1 < nbChannel[cell1]; channel1++)
+                        for (int channel2 = 0; channel2 < nbChannel[cell2]; channel2++)
+                            cp.add(cp.ge(cp.abs(cp.diff(freq[denseIndex(nbChannel, cell1, channel1)],
+                                    freq[denseIndex(nbChannel, cell2, channel2)])), dist[cell1][cell2]));
+    }
+
+    // Objective of n element terms, as one n-ary sum or as a chain of binary sums
+    static void buildElementSum(IloCP cp, int[][] cost, boolean chained) throws IloException {
+        int n = cost.length;
+        IloIntVar[] x = cp.intVarArray(n, 0, cost[0].length - 1);
+        IloIntExpr obj;
+        if (chained) {
+            obj = cp.intExpr();
+            for (int i = 0; i < n; i++)
+                obj = cp.sum(obj, cp.element(cost[i], x[i]));
+        } else {
+            SumBuilder terms = new SumBuilder(cp, n);
+            for (int i = 0; i < n; i++)
+                terms.add(cp.element(cost[i], x[i]));
+            obj = terms.toExpr();
+        }
+        cp.add(cp.minimize(obj));
+    }
+
+    public static Consumer<IloCP> builder(String model, final int scale) throws IOException {
+        long seed = scale;
+        if (model.equals("Facility")) {
+            final Facility.Instance inst = new Facility.Instance(reader(InstanceGenerator.facility(10 * scale, 50 * scale, seed).toArray()));
+            return new Build() {
+                void build(IloCP cp) throws IloException { Facility.buildModel(cp, inst); }
+            };
+        } else if (model.equals("PlantLocation")) {
+            final PlantLocation.Instance inst = new PlantLocation.Instance(reader(InstanceGenerator.plantLocation(100 * scale, 30 * scale, seed).toArray()));
+            return new Build() {
+                void build(IloCP cp) throws IloException { PlantLocation.buildModel(cp, inst); }
+            };
+        } else if (model.equals("Allocation")) {
+            final FrequencyNetwork net = FrequencyNetwork.random(500 * scale, 8, 16, seed);
+            return new Build() {
+                void build(IloCP cp) throws IloException { Allocation.buildModel(cp, net, Allocation.nbAvailFreq); }
+            };
+        } else if (model.equals("Allocation.dense")) {
+            FrequencyNetwork net = FrequencyNetwork.random(500 * scale, 8, 16, seed);
+            final int[] nbChannel = new int[net.getNbCell()];
+            for (int c = 0; c < nbChannel.length; c++)
+                nbChannel[c] = net.nbChannel(c);
+            final int[][] dist = net.toMatrix();
+            return new Build() {
+                void build(IloCP cp) throws IloException { buildDenseAllocation(cp, nbChannel, dist); }
+            };
+        } else if (model.equals("Ppp")) {
+            // 6 periods is the shipped configuration; the model is linear in the periods
+            return new Build() {
+                void build(IloCP cp) throws IloException { Ppp.buildModel(cp, 6 * scale, false); }
+            };
+        } else if (model.equals("Ppp.compact")) {
+            return new Build() {
+                void build(IloCP cp) throws IloException { Ppp.buildModel(cp, 6 * scale, true); }
+            };
+        } else if (model.equals("SumBuilder") || model.equals("SumBuilder.chained")) {
+            Random rnd = new Random(seed);
+            final int[][] cost = new int[10000 * scale][10];
+            for (int[] row : cost)
+                for (int v = 0; v < row.length; v++)
+                    row[v] = rnd.nextInt(100);
+            final boolean chained = model.equals("SumBuilder.chained");
+            return new Build() {
+                void build(IloCP cp) throws IloException { buildElementSum(cp, cost, chained); }
+            };
+        } else if (model.equals("Talent")) {
+            final Talent.Instance inst = new Talent.Instance(reader(InstanceGenerator.talent(5 * scale, 10 * scale, seed).toArray()));
+            return new Build() {
+                void build(IloCP cp) throws IloException { Talent.buildModel(cp, inst); }
+            };
+        } else if (model.equals("Truckfleet")) {
+            Random rnd = new Random(seed);
+            final int nbOrders = 21 * scale;
+            final int[] customerOfOrder = new int[nbOrders];
+            final int[] volumes = new int[nbOrders];
+            final int[] colors = new int[nbOrders];
+            for (int j = 0; j < nbOrders; j++) {
+                customerOfOrder[j] = j * 3 * scale / nbOrders;
+                volumes[j] = 1 + rnd.nextInt(10);
+                colors[j] = rnd.nextInt(3);
+            }
+            return new Build() {
+                void build(IloCP cp) throws IloException {
+                    Truckfleet.buildModel(cp, 15 * scale, customerOfOrder, volumes, colors);
+                }
+            };
+        } else if (model.equals("Sports")) {
+            // Tuples generated here rather than read from the tuple cache on every build
+            final int[][] gha = Sports.GameTuples(10 * scale);
+            return new Build() {
+                void build(IloCP cp) throws IloException { Sports.buildModel(cp, 10 * scale, gha); }
+            };
+        } else if (model.equals("SchedJobShop")) {
+            final SchedJobShop.Instance inst = SchedJobShop.Instance.read("generated", reader(InstanceGenerator.jobShop(10 * scale, 10, seed).toArray()));
+            return new Build() {
+                void build(IloCP cp) throws IloException { SchedJobShop.buildModel(cp, inst); }
+            };
+        } else if (model.equals("SchedRCPSP")) {
+            final RCPSPInstance inst = RCPSPInstance.read(reader(InstanceGenerator.rcpsp(30 * scale + 2, 4, seed).toArray()));
+            return new Build() {
+                void build(IloCP cp) throws IloException { SchedRCPSP.buildModel(cp, inst); }
+            };
+        }
+        throw new IllegalArgumentException("Unknown model: " + model);
+    }
+
+    // The MTZ model of example_3 on n random nodes, built term by term
+    // ("expressions") or through LPMatrixBuilder ("matrix")
+    public static Consumer<IloCplex> lpBuilder(String form, int n) {
+        final double[][] c = example_3.distances(n, n);
+        final boolean matrix;
+        if (form.equals("matrix"))
+            matrix = true;
+        else if (form.equals("expressions"))
+            matrix = false;
+        else
+            throw new IllegalArgumentException("Unknown form: " + form);
+        return new Consumer<IloCplex>() {
+            public void accept(IloCplex model) {
+                try {
+                    if (matrix)
+                        example_3.buildWithMatrix(model, c, false);
+                    else
+                        example_3.buildWithExpressions(model, c, false);
+                } catch (IloException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+}
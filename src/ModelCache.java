@@ -0,0 +1,193 @@
+import ilog.concert.IloException;
+import ilog.cp.IloCP;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Cache of dumped CP Optimizer models keyed by a hash of their inputs.
+ *
+ * On a hit the model is read back with importModel instead of being rebuilt
+ * through Concert; on a miss it is built in a scratch IloCP, dumped to the
+ * cache directory and imported from there, so callers see an imported model
+ * (variables looked up by name) either way. The directory is held under a
+ * size budget by evicting the least recently used models; recency survives
+ * restarts through the file modification times.
+ */
+public class ModelCache {
+
+    public interface Builder {
+        void build(IloCP cp) throws IloException;
+    }
+
+    // Hash of everything a model depends on: builder name and version plus instance data.
+    // Once hex() has been called the key is final and add fails.
+    public static class Key {
+        private final MessageDigest md;
+        private String hex;
+
+        public Key(String builder, int version) {
+            try {
+                md = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            add(builder);
+            add(version);
+        }
+
+        private void checkOpen() {
+            if (hex != null)
+                throw new IllegalStateException("Key already computed: " + hex);
+        }
+
+        public Key add(String s) {
+            checkOpen();
+            add(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                md.update((byte) (c >> 8));
+                md.update((byte) c);
+            }
+            return this;
+        }
+
+        public Key add(int v) {
+            checkOpen();
+            md.update(ByteBuffer.allocate(4).putInt(v).array());
+            return this;
+        }
+
+        public Key add(int[] values) {
+            checkOpen();
+            add(values.length);
+            ByteBuffer buf = ByteBuffer.allocate(4 * Math.min(values.length, 4096));
+            for (int i = 0; i < values.length; i++) {
+                if (!buf.hasRemaining()) {
+                    md.update(buf.array(), 0, buf.position());
+                    buf.clear();
+                }
+                buf.putInt(values[i]);
+            }
+            md.update(buf.array(), 0, buf.position());
+            return this;
+        }
+
+        public Key add(Path file) throws IOException {
+            checkOpen();
+            byte[] bytes = Files.readAllBytes(file);
+            add(bytes.length);
+            md.update(bytes);
+            return this;
+        }
+
+        // SHA-256 of the inputs in hexadecimal, computed on the first call
+        public String hex() {
+            if (hex == null) {
+                StringBuilder sb = new StringBuilder();
+                for (byte b : md.digest())
+                    sb.append(String.format("%02x", b & 0xff));
+                hex = sb.toString();
+            }
+            return hex;
+        }
+
+        public String toString() {
+            return hex();
+        }
+    }
+
+    private final Path dir;
+    private final long budget;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private long totalBytes;
+    private int hits, misses, evictions;
+
+    public ModelCache(String dir, long budgetBytes) throws IOException {
+        this.dir = Paths.get(dir);
+        this.budget = budgetBytes;
+        Files.createDirectories(this.dir);
+        List<Path> files = new ArrayList<Path>();
+        DirectoryStream<Path> stream = Files.newDirectoryStream(this.dir, "*.cpo");
+        try {
+            for (Path f : stream)
+                files.add(f);
+        } finally {
+            stream.close();
+        }
+        final Map<Path, Long> times = new HashMap<Path, Long>();
+        for (Path f : files)
+            times.put(f, Files.getLastModifiedTime(f).toMillis());
+        Collections.sort(files, new Comparator<Path>() {
+            public int compare(Path a, Path b) {
+                return Long.compare(times.get(a), times.get(b));
+            }
+        });
+        for (Path f : files) {
+            String name = f.getFileName().toString();
+            long size = Files.size(f);
+            entries.put(name.substring(0, name.length() - 4), size);
+            totalBytes += size;
+        }
+    }
+
+    private Path path(String key) {
+        return dir.resolve(key + ".cpo");
+    }
+
+    // Imports the model for key into cp, building it first if it is not cached; returns true on a hit
+    public synchronized boolean load(IloCP cp, String key, Builder builder) throws IloException, IOException {
+        Path file = path(key);
+        // get, unlike containsKey, moves the entry to the most recently used end
+        if (entries.get(key) != null && Files.isRegularFile(file)) {
+            cp.importModel(file.toString());
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits++;
+            return true;
+        }
+        misses++;
+        IloCP scratch = new IloCP();
+        Path tmp = Files.createTempFile(dir, key, ".tmp");
+        try {
+            builder.build(scratch);
+            scratch.dumpModel(tmp.toString());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            scratch.end();
+            Files.deleteIfExists(tmp);
+        }
+        cp.importModel(file.toString());
+        Long old = entries.put(key, Files.size(file));
+        totalBytes += entries.get(key) - (old != null ? old : 0);
+        evict();
+        return false;
+    }
+
+    private void evict() throws IOException {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        // Never evict the entry just added, even if it alone exceeds the budget
+        while (totalBytes > budget && entries.size() > 1 && it.hasNext()) {
+            Map.Entry<String, Long> e = it.next();
+            Files.deleteIfExists(path(e.getKey()));
+            totalBytes -= e.getValue();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized int getHits() { return hits; }
+
+    public synchronized int getMisses() { return misses; }
+
+    public synchronized int getEvictions() { return evictions; }
+
+    public synchronized String report() {
+        return "Model cache \t: " + hits + " hits, " + misses + " misses, " + evictions + " evictions, "
+                + entries.size() + " models, " + totalBytes + " / " + budget + " bytes";
+    }
+}
@@ -7,51 +7,48 @@ import ilog.cp.IloCP;
 import java.io.*;
 
 public class PlantLocation {
-    public static class DataReader{
-        private StreamTokenizer st;
-
-        public DataReader(String fileName) throws IOException{
-            FileInputStream fstream = new FileInputStream(fileName);
-            Reader r = new BufferedReader(new InputStreamReader(fstream));
-            st = new StreamTokenizer(r);
-        }
-
-        public int next() throws IOException{
-            st.nextToken();
-            return (int) st.nval;
-        }
-    }
-
-    public static void main(String[] args) throws IOException, IloException{
-        IloCP cp = new IloCP();
-
-        DataReader data = new DataReader("data/facility.data");
-        int nbCustomer = data.next();
-        int nbLocation = data.next();
-
-        int[][] cost = new int[nbCustomer][];
-        for(int c=0;c<nbCustomer;c++){
-            cost[c] = new int[nbLocation];
+    // Customers of a given demand are each served by one plant within its capacity
+    static class Instance {
+        final int nbCustomer, nbLocation;
+        final int[][] cost;
+        final int[] demand;
+        final int[] fixedCost;
+        final int[] capacity;
+        final int totalDemand;
+
+        Instance(DataReader data) throws IOException {
+            nbCustomer = data.next();
+            nbLocation = data.next();
+            cost = new int[nbCustomer][];
+            for(int c=0;c<nbCustomer;c++){
+                cost[c] = new int[nbLocation];
+                for(int w=0;w<nbLocation;w++){
+                    cost[c][w] = data.next();
+                }
+            }
+            demand = new int[nbCustomer];
+            int total = 0;
+            for(int c=0;c<nbCustomer;c++){
+                demand[c] = data.next();
+                total += demand[c];
+            }
+            totalDemand = total;
+            fixedCost = new int[nbLocation];
             for(int w=0;w<nbLocation;w++){
-                cost[c][w] = data.next();
+                fixedCost[w] = data.next();
+            }
+            capacity = new int[nbLocation];
+            for(int w=0;w<nbLocation;w++){
+                capacity[w] = data.next();
             }
         }
+    }
 
-        int[] demand = new int[nbCustomer];
-        int totalDemand = 0;
-        for(int c=0;c<nbCustomer;c++){
-            demand[c] = data.next();
-            totalDemand += demand[c];
-        }
-        int[] fixedCost = new int[nbLocation];
-        for(int w=0;w<nbLocation;w++){
-            fixedCost[w] = data.next();
-        }
-        int[] capacity = new int[nbLocation];
-        for(int w=0;w<nbLocation;w++){
-            capacity[w] = data.next();
-        }
-
+    // Returns the plant of each customer
+    static IloIntVar[] buildModel(IloCP cp, Instance inst) throws IloException {
+        int nbCustomer = inst.nbCustomer;
+        int nbLocation = inst.nbLocation;
+        int[] capacity = inst.capacity;
 
         IloIntVar cust[] = new IloIntVar[nbCustomer];
         for(int c=0;c<nbCustomer;c++){
@@ -64,20 +61,33 @@ public class PlantLocation {
             load[w] = cp.intVar(0,capacity[w]);
             cp.add(cp.eq(open[w],cp.gt(load[w],0))); /// 1>=0 or1
         }
-        cp.add(cp.pack(load,cust,demand));
+        cp.add(cp.pack(load,cust,inst.demand));
 
-        IloNumExpr obj = cp.scalProd(fixedCost,open);
+        SumBuilder objTerms = new SumBuilder(cp, nbLocation + nbCustomer);
+        objTerms.add(inst.fixedCost, open);
         for(int c=0;c<nbCustomer;c++){
-            obj = cp.sum(obj,cp.element(cost[c],cust[c]));
+            objTerms.add(cp.element(inst.cost[c],cust[c]));
         }
+        IloNumExpr obj = objTerms.toExpr();
         cp.add(cp.minimize(obj));
 
-        cp.addKPI(cp.quot(totalDemand,cp.scalProd(open,capacity)),"Mean occupancy");
+        cp.addKPI(cp.quot(inst.totalDemand,cp.scalProd(open,capacity)),"Mean occupancy");
         IloNumExpr[] usage = new IloNumExpr[nbLocation];
         for(int w=0;w<nbLocation;w++){
             usage[w] = cp.sum(cp.quot(load[w],capacity[w]),cp.diff(1,open[w]));
         }
         cp.addKPI(cp.min(usage),"Min capacity");
+        return cust;
+    }
+
+    public static void main(String[] args) throws IOException, IloException{
+        IloCP cp = new IloCP();
+
+        String filename = (args.length > 0 ? args[0] : "data/facility.data");
+        Instance inst = new Instance(new DataReader(filename));
+        int nbCustomer = inst.nbCustomer;
+        IloIntVar[] cust = buildModel(cp, inst);
+
         int[] custValues = {
                 19, 0, 11, 8, 29, 9, 29, 28, 17, 15, 7, 9, 18, 15, 1, 17, 25, 18, 17, 27,
                 22, 1, 26, 3, 22, 2, 20, 27, 2, 16, 1, 16, 12, 28, 19, 2, 20, 14, 13, 27,
@@ -85,12 +95,14 @@ public class PlantLocation {
                 22, 13, 16, 8, 18, 27, 19, 23, 26, 13, 11, 11, 19, 22, 28, 26, 23, 3, 18, 23,
                 26, 14, 29, 18, 9, 7, 12, 27, 8, 20 };
 
-        IloSolution sol = cp.solution();
-        for (int c = 0; c < nbCustomer; c++) {
-            sol.setValue(cust[c], custValues[c]);
-        }
+        if (nbCustomer == custValues.length) {
+            IloSolution sol = cp.solution();
+            for (int c = 0; c < nbCustomer; c++) {
+                sol.setValue(cust[c], custValues[c]);
+            }
 
-        cp.setStartingPoint(sol);
+            cp.setStartingPoint(sol);
+        }
         cp.setParameter(IloCP.DoubleParam.TimeLimit, 10);
         cp.setParameter(IloCP.IntParam.LogPeriod, 10000);
         cp.solve();
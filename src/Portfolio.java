@@ -0,0 +1,315 @@
+import ilog.concert.IloException;
+import ilog.concert.IloIntVar;
+import ilog.cp.IloCP;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Races several IloCP configurations on the same model.
+ *
+ * Every configuration gets its own IloCP, built by the same {@link Model},
+ * and the available cores are shared evenly between them. Improving
+ * solutions of any solver are published to a shared incumbent. The race
+ * ends when a solver completes its search, when some solver's objective
+ * bound reaches the shared incumbent, or at the time limit; the other
+ * solvers are then stopped with abortSearch.
+ *
+ * The sense comes from the caller (-max), not from the model. Every solver's
+ * own objective and bound are checked against it: a lower bound above a
+ * solution means the model maximizes, an upper bound below it that the model
+ * minimizes. A mismatch stops the race with an error instead of a false
+ * proof.
+ *
+ * Usage: Portfolio [-max] [-time seconds] file.cpo[.gz]
+ */
+public class Portfolio {
+
+    public interface Model {
+        void build(IloCP cp) throws IloException;
+    }
+
+    public static abstract class Config {
+        private final String name;
+        public Config(String name) { this.name = name; }
+        public String getName() { return name; }
+        public abstract void apply(IloCP cp) throws IloException;
+    }
+
+    public static class Result {
+        private final String winner;
+        private final double objValue;
+        private final boolean proved;
+        private final double time;
+        Result(String winner, double objValue, boolean proved, double time) {
+            this.winner = winner;
+            this.objValue = objValue;
+            this.proved = proved;
+            this.time = time;
+        }
+        // Configuration holding the best solution, null if none was found
+        public String getWinner() { return winner; }
+        public double getObjValue() { return objValue; }
+        public boolean isProved() { return proved; }
+        public double getTime() { return time; }
+    }
+
+    // Restart, depth-first, multi-point, extended inference and a domain-size phase
+    public static List<Config> defaultConfigs() {
+        List<Config> configs = new ArrayList<Config>();
+        configs.add(new Config("restart") {
+            public void apply(IloCP cp) throws IloException {
+                cp.setParameter(IloCP.IntParam.SearchType, IloCP.ParameterValues.Restart);
+            }
+        });
+        configs.add(new Config("depthfirst") {
+            public void apply(IloCP cp) throws IloException {
+                cp.setParameter(IloCP.IntParam.SearchType, IloCP.ParameterValues.DepthFirst);
+            }
+        });
+        configs.add(new Config("multipoint") {
+            public void apply(IloCP cp) throws IloException {
+                cp.setParameter(IloCP.IntParam.SearchType, IloCP.ParameterValues.MultiPoint);
+            }
+        });
+        configs.add(new Config("restart-extended") {
+            public void apply(IloCP cp) throws IloException {
+                cp.setParameter(IloCP.IntParam.SearchType, IloCP.ParameterValues.Restart);
+                cp.setParameter(IloCP.IntParam.DefaultInferenceLevel, IloCP.ParameterValues.Extended);
+            }
+        });
+        configs.add(new Config("restart-mindomain") {
+            public void apply(IloCP cp) throws IloException {
+                cp.setParameter(IloCP.IntParam.SearchType, IloCP.ParameterValues.Restart);
+                IloIntVar[] vars = cp.getAllIloIntVars();
+                if (vars != null && vars.length > 0)
+                    cp.setSearchPhases(cp.searchPhase(vars,
+                                                      cp.intVarChooser(cp.selectSmallest(cp.domainSize())),
+                                                      cp.intValueChooser(cp.selectSmallest(cp.value()))));
+            }
+        });
+        return configs;
+    }
+
+    // Shared state of one race; the callbacks only touch atomics
+    static class Race {
+        final boolean minimize;
+        final AtomicLong best;
+        final AtomicBoolean stop = new AtomicBoolean();
+        final IloCP[] solvers;
+        volatile String winner;
+        volatile String senseError;
+
+        Race(boolean minimize, int nbSolvers) {
+            this.minimize = minimize;
+            this.best = new AtomicLong(Double.doubleToLongBits(minimize ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY));
+            this.solvers = new IloCP[nbSolvers];
+        }
+
+        double getBest() { return Double.longBitsToDouble(best.get()); }
+
+        boolean better(double a, double b) { return minimize ? a < b : a > b; }
+
+        // True if an objective bound proves the incumbent optimal, within the engine tolerances
+        boolean proves(double bound, double absTol, double relTol) {
+            if (winner == null)
+                return false;
+            double best = getBest();
+            double tol = Math.max(absTol, relTol * Math.abs(best));
+            return minimize ? bound >= best - tol : bound <= best + tol;
+        }
+
+        // False, and the race stopped, if a solver's objective and bound contradict the sense
+        boolean checkSense(double objValue, double bound, double absTol, double relTol) {
+            if (Double.isNaN(bound))
+                return true;
+            double tol = Math.max(absTol, relTol * Math.abs(objValue));
+            if (minimize ? bound <= objValue + tol : bound >= objValue - tol)
+                return true;
+            if (senseError == null)
+                senseError = "Objective bound " + bound + " and solution " + objValue + " show a "
+                    + (minimize ? "maximization" : "minimization") + " model, the race "
+                    + (minimize ? "minimizes (add -max)" : "maximizes (drop -max)");
+            abortAll();
+            return false;
+        }
+
+        // Returns true if value improved the shared incumbent
+        boolean publish(double value, String name) {
+            for (;;) {
+                long current = best.get();
+                if (!better(value, Double.longBitsToDouble(current)))
+                    return false;
+                if (best.compareAndSet(current, Double.doubleToLongBits(value))) {
+                    winner = name;
+                    return true;
+                }
+            }
+        }
+
+        void abortAll() {
+            if (stop.getAndSet(true))
+                return;
+            for (IloCP cp : solvers) {
+                try {
+                    cp.abortSearch();
+                } catch (IloException e) {
+                    // The solver was not searching; its callback checks the flag
+                }
+            }
+        }
+    }
+
+    static class RaceCallback implements IloCP.Callback {
+        private final Race race;
+        private final String name;
+        private final long start;
+        private double absTol, relTol;
+
+        RaceCallback(Race race, String name, long start) {
+            this.race = race;
+            this.name = name;
+            this.start = start;
+        }
+
+        public void invoke(IloCP cp, IloCP.Callback.Reason reason) {
+            try {
+                if (race.stop.get()) {
+                    cp.abortSearch();
+                } else if (reason == IloCP.Callback.Reason.StartSolve) {
+                    absTol = cp.getParameter(IloCP.DoubleParam.OptimalityTolerance);
+                    relTol = cp.getParameter(IloCP.DoubleParam.RelativeOptimalityTolerance);
+                } else if (reason == IloCP.Callback.Reason.Solution) {
+                    double value = cp.getObjValue();
+                    if (race.checkSense(value, cp.getObjBound(), absTol, relTol) && race.publish(value, name))
+                        System.out.format("%8.2f s  %-18s %s%n", (System.nanoTime() - start) / 1e9, name, value);
+                } else if (reason == IloCP.Callback.Reason.ObjBound) {
+                    double bound = cp.getObjBound();
+                    if (cp.getInfo(IloCP.IntInfo.NumberOfSolutions) > 0
+                            && !race.checkSense(cp.getObjValue(), bound, absTol, relTol))
+                        return;
+                    // A bound that meets the shared incumbent proves it optimal
+                    if (race.proves(bound, absTol, relTol))
+                        race.abortAll();
+                }
+            } catch (IloException e) {
+                System.err.println("Portfolio callback: " + e);
+            }
+        }
+    }
+
+    public static Result race(final Model model, List<Config> configs, double timeLimit, boolean minimize)
+            throws IloException, InterruptedException {
+        final int nbSolvers = configs.size();
+        final Race race = new Race(minimize, nbSolvers);
+        final int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / nbSolvers);
+        final long start = System.nanoTime();
+        for (int s = 0; s < nbSolvers; s++)
+            race.solvers[s] = new IloCP();
+        ExecutorService pool = Executors.newFixedThreadPool(nbSolvers);
+        try {
+            List<Future<Boolean>> proofs = new ArrayList<Future<Boolean>>();
+            for (int s = 0; s < nbSolvers; s++) {
+                final IloCP cp = race.solvers[s];
+                final Config config = configs.get(s);
+                final double limit = timeLimit;
+                proofs.add(pool.submit(new Callable<Boolean>() {
+                    public Boolean call() throws IloException {
+                        model.build(cp);
+                        config.apply(cp);
+                        cp.setParameter(IloCP.IntParam.Workers, workers);
+                        cp.setParameter(IloCP.DoubleParam.TimeLimit, limit);
+                        cp.setParameter(IloCP.IntParam.LogVerbosity, IloCP.ParameterValues.Quiet);
+                        cp.addCallback(new RaceCallback(race, config.getName(), start));
+                        if (race.stop.get())
+                            return false;
+                        cp.solve();
+                        // An aborted search also ends, only a completed one is a proof
+                        boolean completed = !race.stop.get()
+                            && cp.getInfo(IloCP.IntInfo.SearchStatus) == IloCP.ParameterValues.SearchCompleted.getValue();
+                        if (completed) {
+                            if (cp.getInfo(IloCP.IntInfo.NumberOfSolutions) > 0
+                                    && race.checkSense(cp.getObjValue(), cp.getObjBound(),
+                                                    cp.getParameter(IloCP.DoubleParam.OptimalityTolerance),
+                                                    cp.getParameter(IloCP.DoubleParam.RelativeOptimalityTolerance)))
+                                race.publish(cp.getObjValue(), config.getName());
+                            race.abortAll();
+                        }
+                        return completed;
+                    }
+                }));
+            }
+            boolean proved = false;
+            for (Future<Boolean> f : proofs)
+                proved |= f.get();
+            if (race.senseError != null)
+                throw new IloException(race.senseError);
+            // Reaching the bound of another solver is a proof as well
+            proved |= race.stop.get() && race.winner != null;
+            return new Result(race.winner, race.getBest(), proved, (System.nanoTime() - start) / 1e9);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IloException)
+                throw (IloException) e.getCause();
+            throw new IloException("Portfolio solver failed: " + e.getCause());
+        } finally {
+            awaitSolvers(race, pool);
+            for (IloCP cp : race.solvers)
+                cp.end();
+        }
+    }
+
+    // Stops the race and waits until no thread is inside build or solve, so that the solvers can be ended
+    static void awaitSolvers(Race race, ExecutorService pool) {
+        race.abortAll();
+        pool.shutdown();
+        boolean interrupted = false;
+        for (;;) {
+            try {
+                if (pool.awaitTermination(1, TimeUnit.SECONDS))
+                    break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    public static void main(String[] args) {
+        boolean minimize = true;
+        double timeLimit = 60;
+        String filename = "data/linebal-BARTHOL2-142-30.cpo";
+        for (int a = 0; a < args.length; a++) {
+            if (args[a].equals("-max"))
+                minimize = false;
+            else if (args[a].equals("-time") && a + 1 < args.length)
+                timeLimit = Double.parseDouble(args[++a]);
+            else
+                filename = args[a];
+        }
+        final String file = filename;
+        try {
+            Result r = race(new Model() {
+                public void build(IloCP cp) throws IloException {
+                    try {
+                        CompressedCPO.importModel(cp, file);
+                    } catch (IOException e) {
+                        throw new IloException("Cannot read " + file + ": " + e.getMessage());
+                    }
+                }
+            }, defaultConfigs(), timeLimit, minimize);
+            if (r.getWinner() == null)
+                System.out.format("No solution found in %.2f s%n", r.getTime());
+            else
+                System.out.format("Best %s from %s in %.2f s%s%n", r.getObjValue(), r.getWinner(), r.getTime(),
+                                  r.isProved() ? " (optimal)" : "");
+        } catch (IloException | InterruptedException e) {
+            System.out.println("Error:");
+            e.printStackTrace();
+        }
+    }
+}
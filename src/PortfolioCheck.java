@@ -0,0 +1,62 @@
+/**
+ * Checks the proof rule of the {@link Portfolio} race without a solver: an
+ * objective bound stops the race only once it meets the shared incumbent,
+ * and a bound on the wrong side of a solution is reported as a sense error.
+ *
+ * Usage: PortfolioCheck   (exits with an error if a check fails)
+ */
+public class PortfolioCheck {
+
+    static void check(boolean condition, String message) {
+        if (!condition)
+            throw new IllegalStateException("PortfolioCheck failed: " + message);
+    }
+
+    // Replays the Solution and ObjBound events of a callback on the race
+    static void solution(Portfolio.Race race, double value) {
+        race.publish(value, "check");
+    }
+
+    static void bound(Portfolio.Race race, double bound, double absTol, double relTol) {
+        if (race.proves(bound, absTol, relTol))
+            race.abortAll();
+    }
+
+    public static void main(String[] args) {
+        // Minimization: the first incumbent 120 is not optimal, the optimum is 105
+        Portfolio.Race min = new Portfolio.Race(true, 0);
+        bound(min, 100, 0, 0);
+        check(!min.stop.get(), "bound before any solution stopped the race");
+        solution(min, 120);
+        bound(min, 100, 0, 0);
+        check(!min.stop.get(), "bound 100 below incumbent 120 stopped the race");
+        solution(min, 105);
+        bound(min, 104, 0, 0);
+        check(!min.stop.get(), "bound 104 below incumbent 105 stopped the race");
+        bound(min, 104.995, 0, 1e-4);
+        check(min.stop.get(), "bound 104.995 within relative tolerance did not stop the race");
+
+        // Maximization: the first incumbent 80 is not optimal, the optimum is 95
+        Portfolio.Race max = new Portfolio.Race(false, 0);
+        solution(max, 80);
+        bound(max, 100, 0, 0);
+        check(!max.stop.get(), "bound 100 above incumbent 80 stopped the race");
+        solution(max, 95);
+        bound(max, 95.5, 0, 0);
+        check(!max.stop.get(), "bound 95.5 above incumbent 95 stopped the race");
+        bound(max, 95, 0, 0);
+        check(max.stop.get(), "bound 95 equal to incumbent 95 did not stop the race");
+
+        // A maximization model raced as a minimization: its upper bound lies above
+        // its solution, the race stops with an error and no proof
+        Portfolio.Race wrong = new Portfolio.Race(true, 0);
+        check(!wrong.checkSense(80, Double.POSITIVE_INFINITY, 0, 0), "infinite upper bound accepted");
+        check(wrong.stop.get() && wrong.senseError != null, "sense mismatch did not stop the race");
+        Portfolio.Race right = new Portfolio.Race(false, 0);
+        check(right.checkSense(80, 100, 0, 0) && right.checkSense(80, Double.POSITIVE_INFINITY, 0, 0),
+              "upper bound of a maximization rejected");
+        check(!right.stop.get(), "consistent sense stopped the race");
+
+        System.out.println("PortfolioCheck passed");
+    }
+}
@@ -19,131 +19,202 @@ public class Ppp {
         return y;
     }
 
-    public static void main(String[] args) {
-        try {
-            IloCP cp = new IloCP();
+    // No two crews meet more than once. The pairwise form sums one reified equality
+    // per pair of boats and period. The compact form gives each boat a code
+    // visits[p] * numBoats + visits[q] for every pair of periods p < q: two crews
+    // meet in both periods exactly when their codes are equal, so one allDiff per
+    // pair of periods replaces the boats^2 sums. Returns the number of expressions.
+    public static int addMeetAtMostOnce(IloCP cp, IloIntVar[][] visits, boolean compact) throws IloException {
+        int numBoats = visits.length;
+        int numPeriods = visits[0].length;
+        int numExprs = 0;
+        if (compact) {
+            for (int p = 0; p < numPeriods; p++) {
+                for (int q = p + 1; q < numPeriods; q++) {
+                    IloIntExpr[] code = new IloIntExpr[numBoats];
+                    for (int i = 0; i < numBoats; i++)
+                        code[i] = cp.sum(cp.prod(visits[i][p], numBoats), visits[i][q]);
+                    cp.add(cp.allDiff(code));
+                    numExprs += numBoats;
+                }
+            }
+        } else {
+            for (int i = 0; i < numBoats; i++) {
+                for (int j = i + 1; j < numBoats; j++) {
+                    SumBuilder timesMet = new SumBuilder(cp, numPeriods);
+                    for (int p = 0; p < numPeriods; p++)
+                        timesMet.add(cp.eq(visits[i][p], visits[j][p]));
+                    cp.add(cp.le(timesMet.toExpr(), 1));
+                    numExprs += numPeriods + 1;
+                }
+            }
+        }
+        return numExprs;
+    }
 
-            //
-            // Data
-            //
-            int numBoats = 42;
-            int[] boatSize= {
-                    7, 8, 12, 12, 12, 12, 12, 10, 10, 10,
-                    10, 10, 8, 8, 8, 12, 8, 8, 8, 8,
-                    8, 8, 7, 7, 7, 7, 7, 7, 6, 6,
-                    6, 6, 6, 6, 6, 6, 6, 6, 9, 2,
-                    3, 4
-            };
-            int[] crewSize = {
-                    2, 2, 2, 2, 4, 4, 4, 1, 2, 2,
-                    2, 3, 4, 2, 3, 6, 2, 2, 4, 2,
-                    4, 5, 4, 4, 2, 2, 4, 5, 2, 4,
-                    2, 2, 2, 2, 2, 2, 4, 5, 7, 2,
-                    3, 4
-            };
-            int numPeriods = 6;
-            if (args.length > 0)
-                numPeriods = Integer.parseInt(args[0]);
+    //
+    // Data
+    //
+    static final int numBoats = 42;
+    static final int[] boatSize= {
+            7, 8, 12, 12, 12, 12, 12, 10, 10, 10,
+            10, 10, 8, 8, 8, 12, 8, 8, 8, 8,
+            8, 8, 7, 7, 7, 7, 7, 7, 6, 6,
+            6, 6, 6, 6, 6, 6, 6, 6, 9, 2,
+            3, 4
+    };
+    static final int[] crewSize = {
+            2, 2, 2, 2, 4, 4, 4, 1, 2, 2,
+            2, 3, 4, 2, 3, 6, 2, 2, 4, 2,
+            4, 5, 4, 4, 2, 2, 4, 5, 2, 4,
+            2, 2, 2, 2, 2, 2, 4, 5, 7, 2,
+            3, 4
+    };
 
-            //
-            // Variables
-            //
+    static class Model {
+        IloIntVar[] host;
+        IloIntVar[][] visits;
+        IloIntVar numHosts;
+        int meetExprs;
+    }
 
-            // Host boat choice
-            IloIntVar[] host = cp.intVarArray(numBoats,0,1, "host");
+    public static Model buildModel(IloCP cp, int numPeriods, boolean compact) throws IloException {
+        Model m = new Model();
 
-            // Who is where each time period (time- and boat-based views)
-            IloIntVar[][] timePeriod = new IloIntVar[numPeriods][];
-            for (int i = 0; i < numPeriods; i++)
-                timePeriod[i] = cp.intVarArray(numBoats, 0, numBoats - 1,
-                        cp.arrayEltName("timePeriod", i));
-            IloIntVar[][] visits = Transpose(timePeriod);
+        //
+        // Variables
+        //
 
-            //
-            // Objective
-            //
-            IloIntVar numHosts = cp.intVar(numPeriods, numBoats);
-            cp.add(cp.eq(numHosts, cp.sum(host)));
-            cp.add(cp.minimize(numHosts));
+        // Host boat choice
+        IloIntVar[] host = m.host = cp.intVarArray(numBoats,0,1, "host");
 
-            //
-            // Constraints
-            //
+        // Who is where each time period (time- and boat-based views)
+        IloIntVar[][] timePeriod = new IloIntVar[numPeriods][];
+        for (int i = 0; i < numPeriods; i++)
+            timePeriod[i] = cp.intVarArray(numBoats, 0, numBoats - 1,
+                    cp.arrayEltName("timePeriod", i));
+        IloIntVar[][] visits = m.visits = Transpose(timePeriod);
 
-            // Stay in my boat (host) or only visit other boats (guest)
-            for (int i = 0; i < numBoats; i++)
-                cp.add(cp.eq(cp.count(visits[i], i), cp.prod(host[i], numPeriods)));
+        //
+        // Objective
+        //
+        IloIntVar numHosts = m.numHosts = cp.intVar(numPeriods, numBoats);
+        cp.add(cp.eq(numHosts, cp.sum(host)));
+        cp.add(cp.minimize(numHosts));
 
-            // Capacity constraints: only hosts have capacity
-            for (int p = 0; p < numPeriods; p++) {
-                IloIntVar[] load = new IloIntVar[numBoats];
-                for (int j = 0; j < numBoats; j++) {
-                    load[j]= cp.intVar(0, boatSize[j]);
-                    cp.add(cp.le(load[j], cp.prod(host[j], boatSize[j])));
-                }
-                cp.add(cp.pack(load, timePeriod[p], crewSize, numHosts));
+        //
+        // Constraints
+        //
+
+        // Stay in my boat (host) or only visit other boats (guest)
+        for (int i = 0; i < numBoats; i++)
+            cp.add(cp.eq(cp.count(visits[i], i), cp.prod(host[i], numPeriods)));
+
+        // Capacity constraints: only hosts have capacity
+        for (int p = 0; p < numPeriods; p++) {
+            IloIntVar[] load = new IloIntVar[numBoats];
+            for (int j = 0; j < numBoats; j++) {
+                load[j]= cp.intVar(0, boatSize[j]);
+                cp.add(cp.le(load[j], cp.prod(host[j], boatSize[j])));
             }
+            cp.add(cp.pack(load, timePeriod[p], crewSize, numHosts));
+        }
 
-            // No two crews meet more than once
-            for (int i = 0; i < numBoats; i++) {
-                for (int j = i + 1; j < numBoats; j++) {
-                    IloIntExpr timesMet = cp.constant(0);
-                    for (int p = 0; p < numPeriods; p++)
-                        timesMet = cp.sum(timesMet,
-                                cp.eq(visits[i][p], visits[j][p]));
-                    cp.add(cp.le(timesMet, 1));
-                }
+        // No two crews meet more than once
+        m.meetExprs = addMeetAtMostOnce(cp, visits, compact);
+
+        // Host and guest boat constraints: given in problem spec
+        cp.add(cp.eq(host[0] , 1));
+        cp.add(cp.eq(host[1] , 1));
+        cp.add(cp.eq(host[2] , 1));
+        cp.add(cp.eq(host[39] , 0));
+        cp.add(cp.eq(host[40] , 0));
+        cp.add(cp.eq(host[41] , 0));
+        return m;
+    }
+
+    public static void main(String[] args) {
+        try {
+            IloCP cp = new IloCP();
+
+            int numPeriods = 6;
+            boolean compact = false;
+            for (String arg : args) {
+                if (arg.equals("-compact"))
+                    compact = true;
+                else
+                    numPeriods = Integer.parseInt(arg);
             }
 
-            // Host and guest boat constraints: given in problem spec
-            cp.add(cp.eq(host[0] , 1));
-            cp.add(cp.eq(host[1] , 1));
-            cp.add(cp.eq(host[2] , 1));
-            cp.add(cp.eq(host[39] , 0));
-            cp.add(cp.eq(host[40] , 0));
-            cp.add(cp.eq(host[41] , 0));
+            String instance = "ppp-" + numPeriods + (compact ? "-compact" : "");
+            SolverEvents.ModelBuild build = SolverEvents.beginBuild(instance);
+            Model model = buildModel(cp, numPeriods, compact);
+            SolverEvents.endBuild(build, (long) numBoats * numPeriods);
+            IloIntVar[] host = model.host;
+            IloIntVar[][] visits = model.visits;
+            IloIntVar numHosts = model.numHosts;
+            int meetExprs = model.meetExprs;
 
             //
             // Solving
             //
             boolean ok = false;
             cp.startNewSearch();
-            if (cp.solve()) {
+            if (SolverEvents.solve(cp, instance)) {
                 ok = true;
-                System.out.println("Solution at cost = " + (int)cp.getValue(numHosts));
-                System.out.print("Hosts: ");
-                System.out.print("[");
+                SolverEvents.SolutionRead read = SolverEvents.beginRead(instance);
+                int cost = (int)cp.getValue(numHosts);
+                int[] hostVal = SolutionWriter.values(cp, host);
+                int[][] visitsVal = SolutionWriter.values(cp, visits);
+                SolverEvents.endRead(read, 1 + numBoats + numBoats * numPeriods);
+                StringBuilder sb = new StringBuilder();
+                sb.append("Solution at cost = ").append(cost).append('\n');
+                sb.append("Hosts: ");
+                sb.append("[");
                 for (int i=0; i< numBoats; i++)
-                    System.out.print("["+(int)cp.getValue(host[i])+"]");
-                System.out.println("]");
+                    sb.append('[').append(hostVal[i]).append(']');
+                sb.append("]\n");
                 for (int i = 0; i < numBoats; i++) {
-                    System.out.print("Boat " + i + " (size = " + crewSize[i] + "):\t");
+                    sb.append("Boat ").append(i).append(" (size = ").append(crewSize[i]).append("):\t");
                     for (int j = 0; j < numPeriods; j++)
-                        System.out.print((int)cp.getValue(visits[i][j]) + "\t");
-                    System.out.println();
+                        sb.append(visitsVal[i][j]).append('\t');
+                    sb.append('\n');
                 }
                 for (int p = 0; p < numPeriods; p++) {
-                    System.out.println("Period " + p);
+                    sb.append("Period ").append(p).append('\n');
                     for (int h = 0; h < numBoats; h++) {
-                        if (cp.getValue(host[h])==1) {
-                            System.out.print("\tHost " + h + " : ");
+                        if (hostVal[h]==1) {
+                            sb.append("\tHost ").append(h).append(" : ");
                             int load = 0;
                             for (int i = 0; i < numBoats; i++) {
-                                if (cp.getValue(visits[i][p]) == h) {
+                                if (visitsVal[i][p] == h) {
                                     load += crewSize[i];
-                                    System.out.print(i + " (" + crewSize[i] + ") ");
+                                    sb.append(i).append(" (").append(crewSize[i]).append(") ");
                                 }
                             }
-                            System.out.println(" --- " + load + " / " + boatSize[h]);
+                            sb.append(" --- ").append(load).append(" / ").append(boatSize[h]).append('\n');
                         }
                     }
                 }
-                System.out.println();
+                System.out.println(sb);
+
+                SolutionWriter out = SolutionWriter.fromProperty();
+                if (out != null) {
+                    out.write("cost", cost);
+                    out.write("host", hostVal);
+                    out.write("visits", visitsVal);
+                    out.close();
+                }
             }
             if (!ok)
                 System.out.println("No solution");
+            System.out.println((compact ? "Compact" : "Pairwise") + " meeting constraints: "
+                    + meetExprs + " expressions built");
+            System.out.println("Model size: " + cp.getInfo(IloCP.IntInfo.NumberOfConstraints) + " constraints, "
+                    + cp.getInfo(IloCP.IntInfo.NumberOfVariables) + " variables, extracted in "
+                    + cp.getInfo(IloCP.DoubleInfo.ExtractionTime) + " s");
             cp.end();
-        } catch (IloException e) {
+        } catch (IloException | java.io.IOException e) {
             System.err.println("Error " + e);
         }
     }
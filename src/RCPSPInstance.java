@@ -0,0 +1,103 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Immutable RCPSP instance held in primitive arrays.
+ *
+ * Successors are stored in compressed sparse row form: the successors of task
+ * i are succ[succStart[i]] .. succ[succStart[i+1]-1], all 0-based. Demands are
+ * a dense tasks x resources matrix in row-major order. Nothing is boxed, and
+ * since every field is final and never written after construction, one
+ * instance can be shared by model builders running on several threads.
+ */
+public class RCPSPInstance {
+
+    private final int nbTasks;
+    private final int nbResources;
+    private final int[] capacities;
+    private final int[] durations;
+    private final int[] startMin;
+    private final int[] endMax;
+    private final int[] demands;
+    private final int[] succStart;
+    private final int[] succ;
+
+    private RCPSPInstance(int nbTasks, int nbResources, int[] capacities, int[] durations,
+                          int[] startMin, int[] endMax, int[] demands, int[] succStart, int[] succ) {
+        this.nbTasks = nbTasks;
+        this.nbResources = nbResources;
+        this.capacities = capacities;
+        this.durations = durations;
+        this.startMin = startMin;
+        this.endMax = endMax;
+        this.demands = demands;
+        this.succStart = succStart;
+        this.succ = succ;
+    }
+
+    // SchedRCPSP format: per task duration, demands, successors numbered from 1
+    public static RCPSPInstance read(DataReader data) throws IOException {
+        return read(data, false, 1);
+    }
+
+    // SchedConflict format: per task duration, start min, end max, demands, successors numbered from 0
+    public static RCPSPInstance readWithTimeWindows(DataReader data) throws IOException {
+        return read(data, true, 0);
+    }
+
+    private static RCPSPInstance read(DataReader data, boolean timeWindows, int firstId) throws IOException {
+        int nbTasks = data.next();
+        int nbResources = data.next();
+        int[] capacities = new int[nbResources];
+        for (int j = 0; j < nbResources; j++)
+            capacities[j] = data.next();
+        int[] durations = new int[nbTasks];
+        int[] startMin = timeWindows ? new int[nbTasks] : null;
+        int[] endMax = timeWindows ? new int[nbTasks] : null;
+        int[] demands = new int[nbTasks * nbResources];
+        int[] succStart = new int[nbTasks + 1];
+        int[] succ = new int[Math.max(16, 2 * nbTasks)];
+        int nbArcs = 0;
+        for (int i = 0; i < nbTasks; i++) {
+            durations[i] = data.next();
+            if (timeWindows) {
+                startMin[i] = data.next();
+                endMax[i] = data.next();
+            }
+            for (int j = 0; j < nbResources; j++)
+                demands[i * nbResources + j] = data.next();
+            int nbSucc = data.next();
+            if (nbArcs + nbSucc > succ.length)
+                succ = Arrays.copyOf(succ, Math.max(2 * succ.length, nbArcs + nbSucc));
+            for (int s = 0; s < nbSucc; s++)
+                succ[nbArcs++] = data.next() - firstId;
+            succStart[i + 1] = nbArcs;
+        }
+        return new RCPSPInstance(nbTasks, nbResources, capacities, durations, startMin, endMax,
+                demands, succStart, Arrays.copyOf(succ, nbArcs));
+    }
+
+    public int getNbTasks() { return nbTasks; }
+
+    public int getNbResources() { return nbResources; }
+
+    public int getNbPrecedences() { return succ.length; }
+
+    public boolean hasTimeWindows() { return startMin != null; }
+
+    public int capacity(int resource) { return capacities[resource]; }
+
+    public int duration(int task) { return durations[task]; }
+
+    public int startMin(int task) { return startMin[task]; }
+
+    public int endMax(int task) { return endMax[task]; }
+
+    public int demand(int task, int resource) { return demands[task * nbResources + resource]; }
+
+    public int firstSuccessor(int task) { return succStart[task]; }
+
+    public int endSuccessor(int task) { return succStart[task + 1]; }
+
+    public int successor(int arc) { return succ[arc]; }
+}
@@ -0,0 +1,213 @@
+import ilog.concert.IloException;
+import ilog.concert.IloIntVar;
+import ilog.concert.IloIntervalVar;
+import ilog.cp.IloCP;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes solution values as CSV or JSON lines through one buffered channel.
+ *
+ * Values are first pulled out of the solver into primitive arrays with
+ * {@link #values(IloCP, IloIntVar[])} and friends, then each array becomes a
+ * single record: "name,v0,v1,..." in CSV, {"name":...,"values":[...]} in JSON
+ * lines. Matrices write one record per row with the row index after the name.
+ * Integers are formatted straight into a char buffer.
+ *
+ * Examples export their solution this way when started with
+ * -Dsolution.out=file.csv, file.jsonl, or "-" for standard output.
+ */
+public class SolutionWriter implements Closeable {
+
+    public enum Format { CSV, JSONL }
+
+    private final Writer out;
+    private final Format format;
+    private final boolean console;
+    private final char[] digits = new char[11];
+
+    public SolutionWriter(OutputStream os, Format format) {
+        this(os, format, false);
+    }
+
+    private SolutionWriter(OutputStream os, Format format, boolean console) {
+        this.out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.US_ASCII), 1 << 16);
+        this.format = format;
+        this.console = console;
+    }
+
+    public static SolutionWriter open(String filename) throws IOException {
+        Format format = (filename.endsWith(".jsonl") || filename.endsWith(".json")) ? Format.JSONL : Format.CSV;
+        if (filename.equals("-")) {
+            System.out.flush();
+            return new SolutionWriter(new FileOutputStream(FileDescriptor.out), format, true);
+        }
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new SolutionWriter(Channels.newOutputStream(channel), format);
+    }
+
+    // Writer for the -Dsolution.out destination, or null when it is not set
+    public static SolutionWriter fromProperty() throws IOException {
+        String target = System.getProperty("solution.out");
+        return (target == null) ? null : open(target);
+    }
+
+    // One getValues call for the whole array instead of one getIntValue per variable
+    public static int[] values(IloCP cp, IloIntVar[] vars) throws IloException {
+        double[] d = new double[vars.length];
+        cp.getValues(vars, d);
+        int[] v = new int[vars.length];
+        for (int i = 0; i < vars.length; i++)
+            v[i] = (int) Math.round(d[i]);
+        return v;
+    }
+
+    // The rows are read with a single getValues call as well
+    public static int[][] values(IloCP cp, IloIntVar[][] vars) throws IloException {
+        int total = 0;
+        for (IloIntVar[] row : vars)
+            total += row.length;
+        IloIntVar[] flat = new IloIntVar[total];
+        int k = 0;
+        for (IloIntVar[] row : vars) {
+            System.arraycopy(row, 0, flat, k, row.length);
+            k += row.length;
+        }
+        int[] all = values(cp, flat);
+        int[][] v = new int[vars.length][];
+        k = 0;
+        for (int i = 0; i < vars.length; i++) {
+            v[i] = Arrays.copyOfRange(all, k, k + vars[i].length);
+            k += vars[i].length;
+        }
+        return v;
+    }
+
+    public static int[] starts(IloCP cp, IloIntervalVar[] vars) {
+        int[] v = new int[vars.length];
+        for (int i = 0; i < vars.length; i++)
+            v[i] = cp.isPresent(vars[i]) ? cp.getStart(vars[i]) : -1;
+        return v;
+    }
+
+    public static int[] ends(IloCP cp, IloIntervalVar[] vars) {
+        int[] v = new int[vars.length];
+        for (int i = 0; i < vars.length; i++)
+            v[i] = cp.isPresent(vars[i]) ? cp.getEnd(vars[i]) : -1;
+        return v;
+    }
+
+    public void write(String name, double value) throws IOException {
+        if (format == Format.CSV) {
+            out.write(name);
+            out.write(',');
+            out.write(Double.toString(value));
+        } else {
+            out.write("{\"name\":\"");
+            writeJsonString(name);
+            out.write("\",\"value\":");
+            out.write(Double.toString(value));
+            out.write('}');
+        }
+        out.write('\n');
+    }
+
+    public void write(String name, int value) throws IOException {
+        if (format == Format.CSV) {
+            out.write(name);
+            out.write(',');
+            writeInt(value);
+        } else {
+            out.write("{\"name\":\"");
+            writeJsonString(name);
+            out.write("\",\"value\":");
+            writeInt(value);
+            out.write('}');
+        }
+        out.write('\n');
+    }
+
+    public void write(String name, int[] values) throws IOException {
+        writeRecord(name, -1, values);
+    }
+
+    public void write(String name, int[][] values) throws IOException {
+        for (int i = 0; i < values.length; i++)
+            writeRecord(name, i, values[i]);
+    }
+
+    private void writeRecord(String name, int row, int[] values) throws IOException {
+        boolean csv = (format == Format.CSV);
+        if (csv) {
+            out.write(name);
+        } else {
+            out.write("{\"name\":\"");
+            writeJsonString(name);
+        }
+        if (row >= 0) {
+            out.write(csv ? "," : "\",\"row\":");
+            writeInt(row);
+            out.write(csv ? "" : ",\"values\":[");
+        } else {
+            out.write(csv ? "" : "\",\"values\":[");
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (csv || i > 0)
+                out.write(',');
+            writeInt(values[i]);
+        }
+        out.write(csv ? "\n" : "]}\n");
+    }
+
+    // Contents of a JSON string: quotes, backslashes, control and non-ASCII characters escaped
+    private void writeJsonString(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+    }
+
+    private void writeInt(int v) throws IOException {
+        if (v == Integer.MIN_VALUE) {
+            out.write(Integer.toString(v));
+            return;
+        }
+        int pos = digits.length;
+        boolean negative = v < 0;
+        if (negative)
+            v = -v;
+        do {
+            digits[--pos] = (char) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        if (negative)
+            digits[--pos] = '-';
+        out.write(digits, pos, digits.length - pos);
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    // Standard output is only flushed so that the example can keep printing
+    public void close() throws IOException {
+        if (console)
+            out.flush();
+        else
+            out.close();
+    }
+}
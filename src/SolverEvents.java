@@ -0,0 +1,191 @@
+import ilog.concert.IloException;
+import ilog.cp.IloCP;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder events for the phases of an example: Concert model
+ * construction, extraction, solve, reading the solution back, and callback
+ * invocations.
+ *
+ * A run with -XX:StartFlightRecording=filename=run.jfr then shows how the
+ * wall-clock time splits between Java-side work and the native solver. When
+ * no recording is active, begin/commit cost next to nothing and the IloCP
+ * counters are not queried.
+ *
+ *   SolverEvents.ModelBuild build = SolverEvents.beginBuild(name);
+ *   ... Concert calls ...
+ *   SolverEvents.endBuild(build, size);
+ *   if (SolverEvents.solve(cp, name)) ...
+ */
+public class SolverEvents {
+
+    @Name("ilog.cp.ModelBuild")
+    @Label("Model Build")
+    @Category({ "ILOG CP" })
+    @Description("Construction of the Concert model in Java")
+    public static class ModelBuild extends Event {
+        @Label("Instance") public String instance;
+        @Label("Size") @Description("Instance size given by the example") public long size;
+    }
+
+    @Name("ilog.cp.Extract")
+    @Label("Extract")
+    @Category({ "ILOG CP" })
+    @Description("Extraction of the model by the engine, inside solve")
+    public static class Extract extends Event {
+        @Label("Instance") public String instance;
+        @Label("Variables") public int variables;
+        @Label("Constraints") public int constraints;
+        @Label("Extraction Time") @Description("Engine extraction time in seconds") public double extractionTime;
+    }
+
+    @Name("ilog.cp.Solve")
+    @Label("Solve")
+    @Category({ "ILOG CP" })
+    public static class Solve extends Event {
+        @Label("Instance") public String instance;
+        @Label("Solution Found") public boolean found;
+        @Label("Objective") public double objective;
+        @Label("Branches") public long branches;
+        @Label("Fails") public long fails;
+        @Label("Solutions") public int solutions;
+        @Label("Memory Usage") @Description("Engine memory in bytes") public long memoryUsage;
+        @Label("Solve Time") @Description("Engine solve time in seconds") public double solveTime;
+    }
+
+    @Name("ilog.cp.SolutionRead")
+    @Label("Solution Read")
+    @Category({ "ILOG CP" })
+    @Description("Reading solution values back into Java")
+    public static class SolutionRead extends Event {
+        @Label("Instance") public String instance;
+        @Label("Values") public long values;
+    }
+
+    @Name("ilog.cp.CallbackInvoke")
+    @Label("Callback Invoke")
+    @Category({ "ILOG CP" })
+    public static class CallbackInvoke extends Event {
+        @Label("Callback") public String callback;
+        @Label("Reason") public String reason;
+    }
+
+    public static ModelBuild beginBuild(String instance) {
+        ModelBuild e = new ModelBuild();
+        e.instance = instance;
+        e.begin();
+        return e;
+    }
+
+    public static void endBuild(ModelBuild e, long size) {
+        e.end();
+        if (e.shouldCommit()) {
+            e.size = size;
+            e.commit();
+        }
+    }
+
+    public static SolutionRead beginRead(String instance) {
+        SolutionRead e = new SolutionRead();
+        e.instance = instance;
+        e.begin();
+        return e;
+    }
+
+    public static void endRead(SolutionRead e, long values) {
+        e.end();
+        if (e.shouldCommit()) {
+            e.values = values;
+            e.commit();
+        }
+    }
+
+    // cp.solve() with Solve and Extract events
+    public static boolean solve(IloCP cp, String instance) throws IloException {
+        ExtractTracker tracker = new ExtractTracker(instance);
+        Solve e = new Solve();
+        cp.addCallback(tracker);
+        boolean found;
+        try {
+            e.begin();
+            found = cp.solve();
+            e.end();
+        } finally {
+            cp.removeCallback(tracker);
+        }
+        if (e.shouldCommit()) {
+            e.instance = instance;
+            e.found = found;
+            e.objective = (found ? objective(cp) : Double.NaN);
+            e.branches = cp.getInfo(IloCP.IntInfo.NumberOfBranches);
+            e.fails = cp.getInfo(IloCP.IntInfo.NumberOfFails);
+            e.solutions = cp.getInfo(IloCP.IntInfo.NumberOfSolutions);
+            e.memoryUsage = cp.getInfo(IloCP.IntInfo.MemoryUsage);
+            e.solveTime = cp.getInfo(IloCP.DoubleInfo.SolveTime);
+            e.commit();
+        }
+        return found;
+    }
+
+    // NaN for models without an objective
+    static double objective(IloCP cp) {
+        try {
+            return cp.getObjValue();
+        } catch (IloException ex) {
+            return Double.NaN;
+        }
+    }
+
+    // Callback that records an Extract event between StartExtraction and EndExtraction
+    static class ExtractTracker implements IloCP.Callback {
+        private final String instance;
+        private Extract event;
+
+        ExtractTracker(String instance) { this.instance = instance; }
+
+        public void invoke(IloCP cp, IloCP.Callback.Reason reason) {
+            if (reason == IloCP.Callback.Reason.StartExtraction) {
+                event = new Extract();
+                event.begin();
+            } else if (reason == IloCP.Callback.Reason.EndExtraction && event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.instance = instance;
+                    try {
+                        event.variables = cp.getInfo(IloCP.IntInfo.NumberOfVariables);
+                        event.constraints = cp.getInfo(IloCP.IntInfo.NumberOfConstraints);
+                        event.extractionTime = cp.getInfo(IloCP.DoubleInfo.ExtractionTime);
+                    } catch (IloException ex) {
+                        // Counters stay at zero
+                    }
+                    event.commit();
+                }
+                event = null;
+            }
+        }
+    }
+
+    // Wraps a callback so that each invocation is a CallbackInvoke event
+    public static IloCP.Callback timed(final String name, final IloCP.Callback callback) {
+        return new IloCP.Callback() {
+            public void invoke(IloCP cp, IloCP.Callback.Reason reason) {
+                CallbackInvoke e = new CallbackInvoke();
+                e.begin();
+                try {
+                    callback.invoke(cp, reason);
+                } finally {
+                    e.end();
+                    if (e.shouldCommit()) {
+                        e.callback = name;
+                        e.reason = reason.toString();
+                        e.commit();
+                    }
+                }
+            }
+        };
+    }
+}
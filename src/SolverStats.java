@@ -0,0 +1,225 @@
+import ilog.concert.IloException;
+import ilog.cp.IloCP;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Registry of IloCP statistics gathered after each solve, grouped by model
+ * family (for example "jobshop-15x15").
+ *
+ * {@link #record} reads the counters of METRICS from the engine and adds
+ * them to one {@link LogHistogram} per family and metric; times are kept in
+ * microseconds. When a log is attached, every solve is also appended to it
+ * so that the summaries of many runs can be rebuilt later with
+ * {@link #readLog}.
+ *
+ * The log is a sequence of tagged records, so runs can be appended to the
+ * same file:
+ * - RUN: magic, version and number of metrics as ints; starts each run,
+ * - FAMILY: family name in modified UTF-8, its id is the number of families
+ *   defined since the start of the run,
+ * - SOLVE: family id, time since the previous solve in milliseconds as a
+ *   zigzag varint, then the metric values as varints.
+ *
+ * Examples attach a log when started with -Dstats.log=file.
+ *
+ * Usage: SolverStats log ...   (prints the summary of the logs)
+ */
+public class SolverStats implements Closeable {
+
+    public static final String[] METRICS = {
+        "branches", "fails", "choicePoints", "variables", "constraints", "solutions", "memoryBytes",
+        "solveMicros", "extractionMicros", "totalMicros"
+    };
+
+    static final int MAGIC = 0x53544154;
+    static final int VERSION = 1;
+    static final int RUN = 0, FAMILY = 1, SOLVE = 2;
+
+    private final Map<String, LogHistogram[]> families = new TreeMap<String, LogHistogram[]>();
+    private final Map<String, Integer> familyIds = new HashMap<String, Integer>();
+    private DataOutputStream log;
+    private long lastMillis;
+
+    // Engine counters of the last solve in the order of METRICS
+    public static long[] snapshot(IloCP cp) throws IloException {
+        return new long[] {
+            cp.getInfo(IloCP.IntInfo.NumberOfBranches),
+            cp.getInfo(IloCP.IntInfo.NumberOfFails),
+            cp.getInfo(IloCP.IntInfo.NumberOfChoicePoints),
+            cp.getInfo(IloCP.IntInfo.NumberOfVariables),
+            cp.getInfo(IloCP.IntInfo.NumberOfConstraints),
+            cp.getInfo(IloCP.IntInfo.NumberOfSolutions),
+            cp.getInfo(IloCP.IntInfo.MemoryUsage),
+            micros(cp.getInfo(IloCP.DoubleInfo.SolveTime)),
+            micros(cp.getInfo(IloCP.DoubleInfo.ExtractionTime)),
+            micros(cp.getInfo(IloCP.DoubleInfo.TotalTime))
+        };
+    }
+
+    static long micros(double seconds) {
+        return Math.max(0, Math.round(seconds * 1e6));
+    }
+
+    // Registry with a log given by -Dstats.log, or without a log
+    public static SolverStats fromProperty() throws IOException {
+        SolverStats stats = new SolverStats();
+        String target = System.getProperty("stats.log");
+        if (target != null)
+            stats.logTo(new FileOutputStream(target, true));
+        return stats;
+    }
+
+    public synchronized void logTo(OutputStream out) throws IOException {
+        log = new DataOutputStream(new BufferedOutputStream(out));
+        log.writeByte(RUN);
+        log.writeInt(MAGIC);
+        log.writeInt(VERSION);
+        log.writeInt(METRICS.length);
+        familyIds.clear();
+        lastMillis = 0;
+    }
+
+    public void record(String family, IloCP cp) throws IloException {
+        long[] values = snapshot(cp);
+        try {
+            add(family, System.currentTimeMillis(), values);
+        } catch (IOException e) {
+            throw new IloException("Cannot write statistics log: " + e.getMessage());
+        }
+    }
+
+    public synchronized void add(String family, long millis, long[] values) throws IOException {
+        LogHistogram[] hist = families.get(family);
+        if (hist == null) {
+            hist = new LogHistogram[METRICS.length];
+            for (int m = 0; m < hist.length; m++)
+                hist[m] = new LogHistogram();
+            families.put(family, hist);
+        }
+        for (int m = 0; m < hist.length; m++)
+            hist[m].record(values[m]);
+        if (log != null) {
+            Integer id = familyIds.get(family);
+            if (id == null) {
+                id = familyIds.size();
+                log.writeByte(FAMILY);
+                log.writeUTF(family);
+                familyIds.put(family, id);
+            }
+            log.writeByte(SOLVE);
+            writeVarint(log, id);
+            long delta = millis - lastMillis;
+            writeVarint(log, (delta << 1) ^ (delta >> 63));
+            lastMillis = millis;
+            for (long v : values)
+                writeVarint(log, v);
+        }
+    }
+
+    public synchronized LogHistogram get(String family, String metric) {
+        LogHistogram[] hist = families.get(family);
+        for (int m = 0; hist != null && m < METRICS.length; m++)
+            if (METRICS[m].equals(metric))
+                return hist[m];
+        return null;
+    }
+
+    public synchronized String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, LogHistogram[]> e : families.entrySet()) {
+            LogHistogram[] hist = e.getValue();
+            sb.append(String.format("%s: %d solves%n", e.getKey(), hist[0].getCount()));
+            sb.append(String.format("  %-18s %12s %12s %12s %12s %12s %14s%n",
+                                    "metric", "min", "p50", "p90", "p99", "max", "mean"));
+            for (int m = 0; m < METRICS.length; m++) {
+                LogHistogram h = hist[m];
+                sb.append(String.format("  %-18s %12d %12d %12d %12d %12d %14.1f%n", METRICS[m], h.getMin(),
+                                        h.percentile(50), h.percentile(90), h.percentile(99), h.getMax(), h.getMean()));
+            }
+        }
+        return sb.toString();
+    }
+
+    public synchronized void close() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+
+    // Adds every solve of a log, which may hold several appended runs
+    public void readLog(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        List<String> names = new ArrayList<String>();
+        int nbMetrics = -1;
+        long millis = 0;
+        for (int tag = data.read(); tag >= 0; tag = data.read()) {
+            if (tag == RUN) {
+                if (data.readInt() != MAGIC)
+                    throw new IOException("Not a statistics log");
+                if (data.readInt() != VERSION)
+                    throw new IOException("Unsupported statistics log version");
+                nbMetrics = data.readInt();
+                if (nbMetrics != METRICS.length)
+                    throw new IOException("Statistics log has " + nbMetrics + " metrics, expected " + METRICS.length);
+                names.clear();
+                millis = 0;
+            } else if (nbMetrics < 0) {
+                throw new IOException("Not a statistics log");
+            } else if (tag == FAMILY) {
+                names.add(data.readUTF());
+            } else if (tag == SOLVE) {
+                int id = (int) readVarint(data);
+                if (id >= names.size())
+                    throw new IOException("Undefined family " + id);
+                long zigzag = readVarint(data);
+                millis += (zigzag >>> 1) ^ -(zigzag & 1);
+                long[] values = new long[nbMetrics];
+                for (int m = 0; m < nbMetrics; m++)
+                    values[m] = readVarint(data);
+                add(names.get(id), millis, values);
+            } else {
+                throw new IOException("Corrupt statistics log, record tag " + tag);
+            }
+        }
+    }
+
+    static void writeVarint(DataOutput out, long v) throws IOException {
+        while ((v & ~0x7fL) != 0) {
+            out.writeByte((int) (v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    static long readVarint(DataInput in) throws IOException {
+        long v = 0;
+        int b;
+        int shift = 0;
+        do {
+            b = in.readUnsignedByte();
+            v |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return v;
+    }
+
+    public static void main(String[] args) throws IOException {
+        SolverStats stats = new SolverStats();
+        for (String file : args) {
+            InputStream in = new FileInputStream(file);
+            try {
+                stats.readLog(in);
+            } finally {
+                in.close();
+            }
+        }
+        System.out.print(stats.summary());
+    }
+}
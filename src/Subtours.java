@@ -0,0 +1,73 @@
+import java.util.Arrays;
+
+/**
+ * Connected components of the arcs chosen by a 0-1 solution of a routing
+ * model, used to find the subtours to cut off.
+ *
+ * Arcs whose value is above one half are merged with a union-find over a
+ * primitive parent array (path halving, union by size), so a full n x n
+ * solution is labelled in O(n^2) with two int arrays of scratch space.
+ */
+public class Subtours {
+
+    // Labels the components of the arcs x[i*n + j] > 0.5 of a flattened n x n
+    // solution: comp[i] receives a label in 0..k-1 and k is returned
+    public static int components(double[] x, int n, int[] comp) {
+        int[] parent = new int[n];
+        int[] size = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+        for (int i = 0; i < n; i++) {
+            int row = i * n;
+            for (int j = 0; j < n; j++) {
+                if (j == i || x[row + j] <= 0.5)
+                    continue;
+                int a = find(parent, i);
+                int b = find(parent, j);
+                if (a == b)
+                    continue;
+                if (size[a] < size[b]) {
+                    int t = a;
+                    a = b;
+                    b = t;
+                }
+                parent[b] = a;
+                size[a] += size[b];
+            }
+        }
+        int k = 0;
+        int[] label = size; // reused: roots get their label, -1 elsewhere
+        Arrays.fill(label, -1);
+        for (int i = 0; i < n; i++) {
+            int r = find(parent, i);
+            if (label[r] < 0)
+                label[r] = k++;
+            comp[i] = label[r];
+        }
+        return k;
+    }
+
+    // Nodes of each component, from the labels computed by components
+    public static int[][] members(int[] comp, int n, int k) {
+        int[] count = new int[k];
+        for (int i = 0; i < n; i++)
+            count[comp[i]]++;
+        int[][] nodes = new int[k][];
+        for (int c = 0; c < k; c++)
+            nodes[c] = new int[count[c]];
+        int[] fill = new int[k];
+        for (int i = 0; i < n; i++)
+            nodes[comp[i]][fill[comp[i]]++] = i;
+        return nodes;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+}
@@ -0,0 +1,87 @@
+import ilog.concert.IloException;
+import ilog.concert.IloIntExpr;
+import ilog.cp.IloCP;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates the terms of a linear integer expression and emits them as one
+ * n-ary node.
+ *
+ * Building a sum with <code>obj = cp.sum(obj, term)</code> in a loop creates
+ * a left-deep tree with one binary node per term, which the engine has to
+ * walk and flatten again at extraction. Here the terms and their
+ * coefficients are kept in growable arrays and {@link #toExpr()} returns a
+ * single cp.sum(IloIntExpr[]), or cp.scalProd when some coefficient is not 1.
+ */
+public class SumBuilder {
+
+    private final IloCP cp;
+    private IloIntExpr[] terms;
+    private int[] coefs;
+    private int size;
+    private boolean weighted;
+    private int constant;
+
+    public SumBuilder(IloCP cp) {
+        this(cp, 16);
+    }
+
+    public SumBuilder(IloCP cp, int capacity) {
+        this.cp = cp;
+        this.terms = new IloIntExpr[Math.max(capacity, 1)];
+        this.coefs = new int[terms.length];
+    }
+
+    public SumBuilder add(IloIntExpr term) {
+        return add(1, term);
+    }
+
+    public SumBuilder add(int coef, IloIntExpr term) {
+        if (coef == 0)
+            return this;
+        if (size == terms.length) {
+            terms = Arrays.copyOf(terms, 2 * size);
+            coefs = Arrays.copyOf(coefs, 2 * size);
+        }
+        terms[size] = term;
+        coefs[size] = coef;
+        size++;
+        weighted |= (coef != 1);
+        return this;
+    }
+
+    public SumBuilder add(IloIntExpr[] terms) {
+        for (IloIntExpr term : terms)
+            add(1, term);
+        return this;
+    }
+
+    public SumBuilder add(int[] coefs, IloIntExpr[] terms) {
+        for (int i = 0; i < terms.length; i++)
+            add(coefs[i], terms[i]);
+        return this;
+    }
+
+    public SumBuilder add(int value) {
+        constant += value;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public IloIntExpr toExpr() throws IloException {
+        if (size == 0)
+            return cp.constant(constant);
+        IloIntExpr expr;
+        if (size == 1 && !weighted)
+            expr = terms[0];
+        else if (weighted)
+            expr = cp.scalProd(Arrays.copyOf(terms, size), Arrays.copyOf(coefs, size));
+        else
+            expr = cp.sum(Arrays.copyOf(terms, size));
+        return (constant == 0) ? expr : cp.sum(expr, constant);
+    }
+}
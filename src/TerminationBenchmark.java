@@ -0,0 +1,69 @@
+import ilog.concert.IloException;
+import ilog.cp.IloCP;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compute saved by {@link TerminationPolicy} over a set of .cpo models.
+ *
+ * Every model is solved twice under the same time limit, once alone and
+ * once with the policy. The table reports solve time and objective of both
+ * runs and the rule that fired; the last line sums the time saved.
+ *
+ * Usage: TerminationBenchmark [-time s] [-gap g] [-stall s] [-stallBranches n] file.cpo[.gz] ...
+ */
+public class TerminationBenchmark {
+
+    static double[] solve(String file, double timeLimit, TerminationPolicy policy) throws IloException, IOException {
+        IloCP cp = new IloCP();
+        try {
+            CompressedCPO.importModel(cp, file);
+            cp.setParameter(IloCP.DoubleParam.TimeLimit, timeLimit);
+            cp.setParameter(IloCP.IntParam.LogVerbosity, IloCP.ParameterValues.Quiet);
+            if (policy != null)
+                cp.addCallback(policy);
+            boolean found = cp.solve();
+            return new double[] { cp.getInfo(IloCP.DoubleInfo.SolveTime), found ? cp.getObjValue() : Double.NaN };
+        } finally {
+            cp.end();
+        }
+    }
+
+    public static void main(String[] args) throws IloException, IOException {
+        double timeLimit = 60;
+        double gap = 0.01;
+        double stall = 10;
+        long stallBranches = -1;
+        int first = 0;
+        for (; first < args.length && args[first].startsWith("-"); first += 2) {
+            if (args[first].equals("-time"))
+                timeLimit = Double.parseDouble(args[first + 1]);
+            else if (args[first].equals("-gap"))
+                gap = Double.parseDouble(args[first + 1]);
+            else if (args[first].equals("-stall"))
+                stall = Double.parseDouble(args[first + 1]);
+            else if (args[first].equals("-stallBranches"))
+                stallBranches = Long.parseLong(args[first + 1]);
+        }
+        String[] files = (first < args.length
+                          ? Arrays.copyOfRange(args, first, args.length)
+                          : new String[] { "data/linebal-BARTHOL2-142-30.cpo" });
+
+        double totalBase = 0, totalPolicy = 0;
+        System.out.format("%-40s %9s %12s %9s %12s  %s%n", "model", "base s", "base obj", "policy s", "policy obj", "rule");
+        for (String file : files) {
+            TerminationPolicy policy = new TerminationPolicy().gap(gap).stagnationTime(stall);
+            if (stallBranches >= 0)
+                policy.stagnationBranches(stallBranches);
+            double[] base = solve(file, timeLimit, null);
+            double[] stopped = solve(file, timeLimit, policy);
+            totalBase += base[0];
+            totalPolicy += stopped[0];
+            System.out.format("%-40s %9.2f %12.4g %9.2f %12.4g  %s%n", file, base[0], base[1], stopped[0], stopped[1],
+                              policy.getStopCause() == null ? "-" : policy.getStopCause());
+        }
+        System.out.format("Saved %.2f s of %.2f s (%.1f%%)%n", totalBase - totalPolicy, totalBase,
+                          totalBase > 0 ? 100 * (totalBase - totalPolicy) / totalBase : 0.0);
+    }
+}
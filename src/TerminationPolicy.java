@@ -0,0 +1,87 @@
+import ilog.concert.IloException;
+import ilog.cp.IloCP;
+
+/**
+ * Callback that stops the search with abortSearch once further work is not
+ * worth it. Each rule is off until it is set:
+ * - {@link #gap}: relative gap at or below a target,
+ * - {@link #stagnationTime}: no better solution for that many seconds,
+ * - {@link #stagnationBranches}: no better solution for that many branches,
+ * - {@link #deadline}: wall-clock time, in milliseconds since the epoch.
+ *
+ * Rules are checked on Solution, ObjBound and Periodic events. The rule that
+ * fired and the solve time at that point are kept for reporting.
+ *
+ *   cp.addCallback(new TerminationPolicy().gap(0.01).stagnationTime(60));
+ */
+public class TerminationPolicy implements IloCP.Callback {
+
+    private double targetGap = -1;
+    private double stallSeconds = -1;
+    private long stallBranches = -1;
+    private long deadlineMillis = -1;
+
+    private double bestUB;
+    private double lastImprovementTime;
+    private long lastImprovementBranches;
+    private String stopCause;
+    private double stopTime;
+
+    public TerminationPolicy gap(double relativeGap) { targetGap = relativeGap; return this; }
+    public TerminationPolicy stagnationTime(double seconds) { stallSeconds = seconds; return this; }
+    public TerminationPolicy stagnationBranches(long branches) { stallBranches = branches; return this; }
+    public TerminationPolicy deadline(long epochMillis) { deadlineMillis = epochMillis; return this; }
+    public TerminationPolicy deadlineIn(double seconds) {
+        return deadline(System.currentTimeMillis() + (long) (seconds * 1000));
+    }
+
+    // Rule that stopped the last solve, null if it ended on its own
+    public String getStopCause() { return stopCause; }
+    // Solve time in seconds when the rule fired
+    public double getStopTime() { return stopTime; }
+
+    public void invoke(IloCP cp, IloCP.Callback.Reason reason) {
+        try {
+            if (reason == IloCP.Callback.Reason.StartSolve) {
+                bestUB = Double.NaN;
+                lastImprovementTime = 0;
+                lastImprovementBranches = 0;
+                stopCause = null;
+                stopTime = 0;
+                return;
+            }
+            boolean soln = (reason == IloCP.Callback.Reason.Solution);
+            if (stopCause != null || !(soln || reason == IloCP.Callback.Reason.ObjBound
+                                       || reason == IloCP.Callback.Reason.Periodic))
+                return;
+            double time = cp.getInfo(IloCP.DoubleInfo.SolveTime);
+            long branches = cp.getInfo(IloCP.IntInfo.NumberOfBranches);
+            if (soln) {
+                double ub = cp.getObjValue();
+                if (ub != bestUB) {
+                    bestUB = ub;
+                    lastImprovementTime = time;
+                    lastImprovementBranches = branches;
+                }
+            }
+            String cause = null;
+            if (deadlineMillis >= 0 && System.currentTimeMillis() >= deadlineMillis)
+                cause = "deadline";
+            else if (!Double.isNaN(bestUB)) {
+                if (targetGap >= 0 && cp.getObjGap() <= targetGap)
+                    cause = "gap";
+                else if (stallSeconds >= 0 && time - lastImprovementTime >= stallSeconds)
+                    cause = "stagnation-time";
+                else if (stallBranches >= 0 && branches - lastImprovementBranches >= stallBranches)
+                    cause = "stagnation-branches";
+            }
+            if (cause != null) {
+                stopCause = cause;
+                stopTime = time;
+                cp.abortSearch();
+            }
+        } catch (IloException ex) {
+            System.err.println("TerminationPolicy: " + ex);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import ilog.concert.IloException;
+import ilog.concert.IloIntTupleSet;
+import ilog.cp.IloCP;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Builds IloIntTupleSet tables for allowedAssignments from primitive arrays,
+ * optionally through an on-disk cache of generated tables.
+ *
+ * A table is an int[tuples][arity]. Generated tables are stored under a name
+ * that must include every parameter of the generator and a version of the
+ * generator itself, to be bumped when its rules change (for example the hex
+ * of a ModelCache.Key, as in Sports and Teambuilding), in the directory given
+ * by -Dtuple.cache, "tuple-cache" by default, so later runs map the file
+ * instead of generating the tuples again.
+ *
+ * File layout (little endian): magic, version, number of tuples, arity, then
+ * the tuples row by row.
+ */
+public class TupleTables {
+
+    public interface Generator {
+        int[][] generate() throws IloException;
+    }
+
+    static final int MAGIC = 0x54555031;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 * 4;
+
+    public static IloIntTupleSet of(IloCP cp, int[][] tuples, int arity) throws IloException {
+        IloIntTupleSet ts = cp.intTable(arity);
+        for (int[] tuple : tuples)
+            cp.addTuple(ts, tuple);
+        return ts;
+    }
+
+    // Tuples (i, j, matrix[i][j]) of a square transition matrix
+    public static int[][] fromMatrix(int[][] matrix) {
+        int n = matrix.length;
+        int[][] tuples = new int[n * n][];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                tuples[i * n + j] = new int[] { i, j, matrix[i][j] };
+        return tuples;
+    }
+
+    public static IloIntTupleSet cached(IloCP cp, String name, int arity, Generator generator) throws IloException {
+        return of(cp, cached(name, arity, generator), arity);
+    }
+
+    // Tuples stored under name, generated and stored on the first call
+    public static int[][] cached(String name, int arity, Generator generator) throws IloException {
+        Path dir = Paths.get(System.getProperty("tuple.cache", "tuple-cache"));
+        Path file = dir.resolve(name + ".tuples");
+        try {
+            int[][] tuples = read(file, arity);
+            if (tuples != null)
+                return tuples;
+        } catch (IOException e) {
+            // Unreadable entry: generate it again
+        }
+        int[][] tuples = generator.generate();
+        try {
+            write(dir, file, tuples, arity);
+        } catch (IOException e) {
+            // The cache is only an accelerator, a read-only directory is fine
+        }
+        return tuples;
+    }
+
+    static int[][] read(Path file, int arity) throws IOException {
+        if (!Files.isRegularFile(file))
+            return null;
+        ByteBuffer buf;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE)
+                return null;
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        } finally {
+            channel.close();
+        }
+        if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+            return null;
+        int count = buf.getInt();
+        if (buf.getInt() != arity || count < 0 || buf.remaining() != 4L * count * arity)
+            return null;
+        IntBuffer ints = buf.asIntBuffer();
+        int[][] tuples = new int[count][arity];
+        for (int t = 0; t < count; t++)
+            ints.get(tuples[t]);
+        return tuples;
+    }
+
+    static void write(Path dir, Path file, int[][] tuples, int arity) throws IOException {
+        Files.createDirectories(dir);
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + 4 * tuples.length * arity).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(tuples.length).putInt(arity);
+        for (int[] tuple : tuples)
+            for (int k = 0; k < arity; k++)
+                buf.putInt(tuple[k]);
+        buf.flip();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE);
+            try {
+                while (buf.hasRemaining())
+                    channel.write(buf);
+            } finally {
+                channel.close();
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
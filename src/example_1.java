@@ -22,22 +22,18 @@ public class example_1 {
             objective.addTerm(0.15,y);
             // define objective
             model.addMinimize(objective);
-            // define constraint
+            // define constraints, as rows over the columns x = 0 and y = 1
+            LPMatrixBuilder rows = new LPMatrixBuilder();
+            rows.addTerm(0,60).addTerm(1,60).addGe(300);
+            rows.addTerm(0,12).addTerm(1,6).addGe(36);
+            rows.addTerm(0,10+30).addGe(90); // 10x + 30x, one entry per column
+            rows.addTerm(0,2).addTerm(1,-1).addEq(0);
+            rows.addTerm(1,1).addTerm(0,-1).addLe(8);
+            IloRange[] ranges = rows.build(model,new IloNumVar[]{x,y}).getRanges();
 
             List<IloRange> constraints = new ArrayList<IloRange>();
-            constraints.add(model.addGe(model.sum(model.prod(60,x),model.prod(60,y)),300));
-            constraints.add(model.addGe(model.sum(model.prod(12,x),model.prod(6,y)),36));
-            model.addGe(model.sum(model.prod(10,x),model.prod(30,x)),90);
-
-            IloLinearNumExpr num_expr = model.linearNumExpr();
-            num_expr.addTerm(2,x);
-            num_expr.addTerm(-1,y);
-            model.addEq(num_expr,0);
-
-            num_expr = model.linearNumExpr();
-            num_expr.addTerm(1,y);
-            num_expr.addTerm(-1,x);
-            model.addLe(num_expr,8);
+            constraints.add(ranges[0]);
+            constraints.add(ranges[1]);
 
             model.setParam(IloCplex.IntParam.Simplex.Display,0);
 
@@ -1,5 +1,4 @@
 import ilog.concert.IloException;
-import ilog.concert.IloLinearNumExpr;
 import ilog.concert.IloNumVar;
 import ilog.cplex.IloCplex;
 
@@ -20,39 +19,47 @@ public class example_2 {
         try{
             IloCplex model = new IloCplex();
 
+            // Columns: x[i][j] at i*m+j, then y
             IloNumVar[][] x = new IloNumVar[n][];
+            IloNumVar[] columns = new IloNumVar[n*m+1];
             for(int i = 0;i<n;i++){
                 x[i] = model.numVarArray(m,0,Double.MAX_VALUE);
+                System.arraycopy(x[i],0,columns,i*m,m);
             }
             IloNumVar y = model.numVar(0,Double.MIN_VALUE);
+            int yCol = n*m;
+            columns[yCol] = y;
 
-            IloLinearNumExpr[] usedWeightCapacity = new IloLinearNumExpr[m];
-            IloLinearNumExpr[] usedVolumeCapacity = new IloLinearNumExpr[m];
-            for(int j = 0;j<m;j++){
-                usedWeightCapacity[j] = model.linearNumExpr();
-                usedVolumeCapacity[j] = model.linearNumExpr();
-                for (int i = 0;i<n;i++){
-                    usedWeightCapacity[j].addTerm(1.0,x[i][j]);
-                    usedVolumeCapacity[j].addTerm(v[i],x[i][j]);
-                }
-            }
-
-            IloLinearNumExpr objective = model.linearNumExpr();
+            double[] objCoef = new double[n*m+1];
             for(int i = 0;i<n;i++){
                 for(int j = 0;j<m;j++) {
-                    objective.addTerm(p[i], x[i][j]);
+                    objCoef[i*m+j] = p[i];
                 }
             }
+            model.addMaximize(model.scalProd(objCoef,columns));
 
-            model.addMaximize(objective);
+            LPMatrixBuilder rows = new LPMatrixBuilder(n+3*m,3*n*m+m);
             for(int i = 0;i<n;i++){
-                model.addLe(model.sum(x[i]),a[i]);
+                for(int j = 0;j<m;j++)
+                    rows.addTerm(i*m+j,1.0);
+                rows.addLe(a[i]);
             }
-            for(int i = 0;i<m;i++){
-                model.addLe(usedWeightCapacity[i],c[i]);
-                model.addLe(usedVolumeCapacity[i],v[i]);
-                model.addEq(model.prod(1/c[i],usedWeightCapacity[i]),y);
+            for(int j = 0;j<m;j++){
+                // used weight capacity
+                for (int i = 0;i<n;i++)
+                    rows.addTerm(i*m+j,1.0);
+                rows.addLe(c[j]);
+                // used volume capacity
+                for (int i = 0;i<n;i++)
+                    rows.addTerm(i*m+j,v[i]);
+                rows.addLe(v[j]);
+                // same share of the weight capacity in every compartment
+                for (int i = 0;i<n;i++)
+                    rows.addTerm(i*m+j,1/c[j]);
+                rows.addTerm(yCol,-1.0);
+                rows.addEq(0);
             }
+            rows.build(model,columns);
 
 
             if (model.solve()){
@@ -3,18 +3,77 @@ import ilog.concert.IloLinearNumExpr;
 import ilog.concert.IloNumVar;
 import ilog.cplex.IloCplex;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
 public class example_3 {
+    // Usage: example_3 [n] [seed] [-lazy]
     public static void main(String[] args){
-        solve_Me(100);
+        boolean lazy = false;
+        List<String> rest = new ArrayList<String>();
+        for (String arg : args) {
+            if (arg.equals("-lazy"))
+                lazy = true;
+            else
+                rest.add(arg);
+        }
+        int n = (rest.size() > 0 ? Integer.parseInt(rest.get(0)) : 100);
+        long seed = (rest.size() > 1 ? Long.parseLong(rest.get(1)) : new Random().nextLong());
+        solve_Me(n, seed, lazy);
     }
 
 
     public static void solve_Me(int n){
+        solve_Me(n, new Random().nextLong());
+    }
+
+    public static void solve_Me(int n, long seed){
+        solve_Me(n, seed, false);
+    }
+
+    // Adds x[S] <= |S| - 1 for every subtour S of an integer candidate solution
+    static class SubtourCallback extends IloCplex.LazyConstraintCallback {
+        final IloCplex model;
+        final IloNumVar[] flat;
+        final int n;
+        final int[] comp;
+        int nbCuts;
+
+        SubtourCallback(IloCplex model, IloNumVar[][] x) {
+            this.model = model;
+            this.n = x.length;
+            this.flat = new IloNumVar[n * n];
+            for (int i = 0; i < n; i++)
+                System.arraycopy(x[i], 0, flat, i * n, n);
+            this.comp = new int[n];
+        }
+
+        protected void main() throws IloException {
+            double[] val = getValues(flat);
+            int k = Subtours.components(val, n, comp);
+            if (k <= 1)
+                return;
+            for (int[] tour : Subtours.members(comp, n, k)) {
+                IloLinearNumExpr expr = model.linearNumExpr();
+                for (int i : tour)
+                    for (int j : tour)
+                        if (i != j)
+                            expr.addTerm(1, flat[i * n + j]);
+                add(model.le(expr, tour.length - 1));
+                nbCuts++;
+            }
+        }
+    }
+
+    public static double[][] distances(int n, long seed){
+        Random rnd = new Random(seed);
         double[] xPos = new double[n];
         double[] yPos = new double[n];
         for(int i =0;i<n;i++){
-            xPos[i] = Math.random();
-            yPos[i] = Math.random();
+            xPos[i] = rnd.nextDouble();
+            yPos[i] = rnd.nextDouble();
         }
         double[][] c = new double[n][n];
         for(int i =0;i<n;i++){
@@ -22,48 +81,54 @@ public class example_3 {
                 c[i][j] = Math.sqrt(Math.pow(xPos[i]-xPos[j],2)+Math.pow(yPos[i]-yPos[j],2));
             }
         }
+        return c;
+    }
 
-        try {
-            IloCplex model = new IloCplex();
-
-            IloNumVar[][] x = new IloNumVar[n][];
-            for (int i =0;i<n;i++){
-                x[i] = model.boolVarArray(n);
-            }
-            IloNumVar[] u = model.numVarArray(n,0,Double.MAX_VALUE);
+    // Objective, degree constraints and, unless lazy, MTZ constraints built term by
+    // term with IloLinearNumExpr. Returns the arc variables.
+    public static IloNumVar[][] buildWithExpressions(IloCplex model, double[][] c, boolean lazy) throws IloException {
+        int n = c.length;
+        IloNumVar[][] x = new IloNumVar[n][];
+        for (int i =0;i<n;i++){
+            x[i] = model.boolVarArray(n);
+        }
 
-            IloLinearNumExpr obj = model.linearNumExpr();
-            for (int i=0;i<n;i++){
-                for (int j = 0;j<n;j++){
-                    if (j!=i){
-                        obj.addTerm(c[i][j],x[i][j]);
-                    }
+        IloLinearNumExpr obj = model.linearNumExpr();
+        for (int i=0;i<n;i++){
+            for (int j = 0;j<n;j++){
+                if (j!=i){
+                    obj.addTerm(c[i][j],x[i][j]);
                 }
             }
+        }
 
-            model.addMinimize(obj);
+        model.addMinimize(obj);
 
-            for(int j=0;j<n;j++){
-                IloLinearNumExpr expr = model.linearNumExpr();
-                for (int i=0;i<n;i++){
-                    if(i!=j){
-                        expr.addTerm(1,x[i][j]);
-                    }
+        for(int j=0;j<n;j++){
+            IloLinearNumExpr expr = model.linearNumExpr();
+            for (int i=0;i<n;i++){
+                if(i!=j){
+                    expr.addTerm(1,x[i][j]);
                 }
-                model.addEq(expr,1.0);
             }
+            model.addEq(expr,1.0);
+        }
 
-            for(int i=0;i<n;i++){
-                IloLinearNumExpr expr = model.linearNumExpr();
-                for (int j=0;j<n;j++){
-                    if(i!=j){
-                        expr.addTerm(1,x[i][j]);
-                    }
+        for(int i=0;i<n;i++){
+            IloLinearNumExpr expr = model.linearNumExpr();
+            for (int j=0;j<n;j++){
+                if(i!=j){
+                    expr.addTerm(1,x[i][j]);
                 }
-                model.addEq(expr,1.0);
             }
+            model.addEq(expr,1.0);
+        }
 
-
+        if (lazy) {
+            for (int i=0;i<n;i++)
+                x[i][i].setUB(0);
+        } else {
+            IloNumVar[] u = model.numVarArray(n,0,Double.MAX_VALUE);
             for (int i=1;i<n;i++){
                 for(int j=1;j<n;j++){
                     IloLinearNumExpr expr = model.linearNumExpr();
@@ -73,17 +138,95 @@ public class example_3 {
                     model.addLe(expr,n-2);
                 }
             }
+        }
+        return x;
+    }
+
+    // The same model with the rows collected in CSR arrays and added as one LP
+    // matrix: columns x[i][j] at i*n+j, then u[i] at n*n+i
+    public static IloNumVar[][] buildWithMatrix(IloCplex model, double[][] c, boolean lazy) throws IloException {
+        int n = c.length;
+        int nbCols = lazy ? n*n : n*n+n;
+        IloNumVar[] columns = new IloNumVar[nbCols];
+        IloNumVar[][] x = new IloNumVar[n][];
+        for (int i =0;i<n;i++){
+            x[i] = model.boolVarArray(n);
+            System.arraycopy(x[i],0,columns,i*n,n);
+        }
+        double[] objCoef = new double[n*n];
+        for (int i=0;i<n;i++){
+            for (int j = 0;j<n;j++){
+                if (j!=i){
+                    objCoef[i*n+j] = c[i][j];
+                }
+            }
+        }
+        model.addMinimize(model.scalProd(objCoef,Arrays.copyOf(columns,n*n)));
+
+        int nbRows = lazy ? 2*n : 2*n+(n-1)*(n-1);
+        LPMatrixBuilder rows = new LPMatrixBuilder(nbRows,2*n*(n-1)+(lazy ? 0 : 3*(n-1)*(n-1)));
+        for(int j=0;j<n;j++){
+            for (int i=0;i<n;i++)
+                if(i!=j)
+                    rows.addTerm(i*n+j,1);
+            rows.addEq(1.0);
+        }
+        for(int i=0;i<n;i++){
+            for (int j=0;j<n;j++)
+                if(i!=j)
+                    rows.addTerm(i*n+j,1);
+            rows.addEq(1.0);
+        }
+        if (lazy) {
+            for (int i=0;i<n;i++)
+                x[i][i].setUB(0);
+        } else {
+            IloNumVar[] u = model.numVarArray(n,0,Double.MAX_VALUE);
+            System.arraycopy(u,0,columns,n*n,n);
+            for (int i=1;i<n;i++){
+                for(int j=1;j<n;j++){
+                    // u[i] - u[j] cancels out on the diagonal
+                    if (i!=j)
+                        rows.addTerm(n*n+i,1).addTerm(n*n+j,-1);
+                    rows.addTerm(i*n+j,n-1);
+                    rows.addLe(n-2);
+                }
+            }
+        }
+        rows.build(model,columns);
+        return x;
+    }
+
+    // MTZ formulation, or with lazy the assignment model plus subtour cuts added by a
+    // callback whenever an integer solution has several components.
+    // Returns the objective value, or NaN when no solution was found.
+    public static double solve_Me(int n, long seed, boolean lazy){
+        double result = Double.NaN;
+        double[][] c = distances(n, seed);
+
+        try {
+            IloCplex model = new IloCplex();
+            IloNumVar[][] x = buildWithMatrix(model, c, lazy);
+
+            SubtourCallback subtours = null;
+            if (lazy) {
+                subtours = new SubtourCallback(model, x);
+                model.use(subtours);
+            }
 
             model.setParam(IloCplex.Param.MIP.Tolerances.MIPGap,0.1);
             model.setParam(IloCplex.Param.TimeLimit,15);
 
 
-            model.solve();
+            if (model.solve())
+                result = model.getObjValue();
+            if (subtours != null)
+                System.out.println("Subtour cuts added: " + subtours.nbCuts);
             model.end();
 
         } catch (IloException e) {
             e.printStackTrace();
         }
-
+        return result;
     }
 }